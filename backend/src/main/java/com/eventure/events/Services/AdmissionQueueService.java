@@ -0,0 +1,250 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.QueueStatusResponse;
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.AdmissionQueueState;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.QueueToken;
+import com.eventure.events.repository.AdmissionQueueStateRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.QueueTokenRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room in front of checkout. Every visitor of an event gets a
+ * sequence number; once a second the queue moves its admission cursor forward by
+ * at most {@code admission.queue.rate-per-second}, and never by more than the
+ * tickets that are still available minus the visitors already admitted who have
+ * not held or booked yet. Position lookups are a subtraction, so polling the
+ * queue costs nothing.
+ *
+ * Admitted tokens are valid for {@code admission.queue.admitted-ttl-seconds}.
+ * With {@code admission.queue.persist} the cursors and tokens are also written to
+ * MongoDB so a restart does not send everyone to the back of the line.
+ */
+@Service
+public class AdmissionQueueService {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionQueueService.class);
+    private static final long ABANDONED_TOKEN_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final EventRepo eventRepo;
+    private final QueueTokenRepo queueTokenRepo;
+    private final AdmissionQueueStateRepo admissionQueueStateRepo;
+    private final boolean enabled;
+    private final boolean persist;
+    private final int ratePerSecond;
+    private final long admittedTtlMillis;
+
+    private final Map<String, EventQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, QueueToken> tokens = new ConcurrentHashMap<>();
+
+    private static final class EventQueue {
+        private final AtomicLong nextSeq;
+        private volatile long admittedUpTo;
+        private volatile boolean soldOut;
+        // tokens below this sequence number were admitted longer ago than the TTL
+        private volatile long expiredBelow;
+        // admission cursor value -> time it was reached, used to expire admitted tokens
+        private final NavigableMap<Long, Long> admittedAt = new ConcurrentSkipListMap<>();
+        // admitted tokens that already held or booked tickets, their tickets are out of available_tickets
+        private final NavigableSet<Long> converted = new ConcurrentSkipListSet<>();
+
+        private EventQueue(long nextSeq, long admittedUpTo) {
+            this.nextSeq = new AtomicLong(nextSeq);
+            this.admittedUpTo = admittedUpTo;
+        }
+
+        // Admitted, not expired and not converted yet. These visitors may still take tickets.
+        private long outstanding() {
+            return Math.max(0, admittedUpTo - expiredBelow - converted.size());
+        }
+    }
+
+    @Autowired
+    public AdmissionQueueService(EventRepo eventRepo, QueueTokenRepo queueTokenRepo,
+                                 AdmissionQueueStateRepo admissionQueueStateRepo,
+                                 @Value("${admission.queue.enabled:false}") boolean enabled,
+                                 @Value("${admission.queue.persist:false}") boolean persist,
+                                 @Value("${admission.queue.rate-per-second:50}") int ratePerSecond,
+                                 @Value("${admission.queue.admitted-ttl-seconds:900}") long admittedTtlSeconds) {
+        this.eventRepo = eventRepo;
+        this.queueTokenRepo = queueTokenRepo;
+        this.admissionQueueStateRepo = admissionQueueStateRepo;
+        this.enabled = enabled;
+        this.persist = persist;
+        this.ratePerSecond = ratePerSecond;
+        this.admittedTtlMillis = admittedTtlSeconds * 1000;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public QueueStatusResponse join(String eventId, String userId) {
+        if (userId == null || userId.isEmpty()) {
+            throw new MyException("User ID is required to join the queue.");
+        }
+        if (!eventRepo.existsById(eventId)) {
+            throw new MyException("Event not found with id: " + eventId);
+        }
+        String token = UUID.randomUUID().toString();
+        if (!enabled) {
+            return new QueueStatusResponse(token, eventId, 0, true, false);
+        }
+        EventQueue queue = queues.computeIfAbsent(eventId, id -> new EventQueue(0, 0));
+        QueueToken queueToken = new QueueToken(token, eventId, userId, queue.nextSeq.getAndIncrement(), System.currentTimeMillis());
+        tokens.put(token, queueToken);
+        if (persist) {
+            queueTokenRepo.save(queueToken);
+        }
+        return status(queueToken, queue);
+    }
+
+    public QueueStatusResponse getStatus(String eventId, String token) {
+        QueueToken queueToken = tokens.get(token);
+        if (queueToken == null || !queueToken.getEventId().equals(eventId)) {
+            throw new MyException("Queue token not found or expired.");
+        }
+        return status(queueToken, queues.get(eventId));
+    }
+
+    /**
+     * Cheap check used by the security filter chain. A token only admits the user
+     * who joined with it, to the checkout of the event whose queue issued it.
+     */
+    public boolean isAdmitted(String token, String eventId, String userId) {
+        if (!enabled) {
+            return true;
+        }
+        if (token == null || eventId == null || userId == null) {
+            return false;
+        }
+        QueueToken queueToken = tokens.get(token);
+        if (queueToken == null || !queueToken.getEventId().equals(eventId) || !userId.equals(queueToken.getUserId())) {
+            return false;
+        }
+        return isAdmitted(queueToken);
+    }
+
+    private boolean isAdmitted(QueueToken queueToken) {
+        EventQueue queue = queues.get(queueToken.getEventId());
+        if (queue == null || queueToken.getSeq() >= queue.admittedUpTo || queueToken.getSeq() < queue.expiredBelow) {
+            return false;
+        }
+        Map.Entry<Long, Long> admitted = queue.admittedAt.higherEntry(queueToken.getSeq());
+        return admitted != null && System.currentTimeMillis() - admitted.getValue() < admittedTtlMillis;
+    }
+
+    /**
+     * Called once a token's checkout request went through, from then on its tickets
+     * are counted in available_tickets instead of as outstanding.
+     */
+    public void markConverted(String token) {
+        QueueToken queueToken = token == null ? null : tokens.get(token);
+        if (queueToken == null) {
+            return;
+        }
+        EventQueue queue = queues.get(queueToken.getEventId());
+        if (queue != null && queueToken.getSeq() >= queue.expiredBelow && queueToken.getSeq() < queue.admittedUpTo) {
+            queue.converted.add(queueToken.getSeq());
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, EventQueue> entry : queues.entrySet()) {
+            EventQueue queue = entry.getValue();
+            long waiting = queue.nextSeq.get() - queue.admittedUpTo;
+            if (waiting <= 0) {
+                continue;
+            }
+            Events inventory = eventRepo.findInventoryById(entry.getKey()).orElse(null);
+            int available = inventory == null ? 0 : inventory.getAvailable_tickets();
+            queue.soldOut = available <= 0;
+            long batch = Math.min(waiting, Math.min(ratePerSecond, available - queue.outstanding()));
+            if (batch <= 0) {
+                continue;
+            }
+            queue.admittedUpTo += batch;
+            queue.admittedAt.put(queue.admittedUpTo, now);
+            if (persist) {
+                admissionQueueStateRepo.save(new AdmissionQueueState(entry.getKey(), queue.nextSeq.get(), queue.admittedUpTo));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long cutoff = now - admittedTtlMillis;
+        for (EventQueue queue : queues.values()) {
+            Map.Entry<Long, Long> oldest;
+            while ((oldest = queue.admittedAt.firstEntry()) != null && oldest.getValue() < cutoff) {
+                queue.expiredBelow = oldest.getKey();
+                queue.admittedAt.remove(oldest.getKey());
+            }
+            queue.converted.headSet(queue.expiredBelow).clear();
+        }
+        long abandoned = now - ABANDONED_TOKEN_MILLIS;
+        tokens.values().removeIf(token -> {
+            EventQueue queue = queues.get(token.getEventId());
+            return queue == null || token.getSeq() < queue.expiredBelow || token.getIssuedAt() < abandoned;
+        });
+        if (persist) {
+            queueTokenRepo.deleteByIssuedAtLessThan(abandoned);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        if (!enabled || !persist) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (AdmissionQueueState state : admissionQueueStateRepo.findAll()) {
+            EventQueue queue = new EventQueue(state.getNextSeq(), state.getAdmittedUpTo());
+            // Restored admissions get a fresh TTL. Conversions are not persisted, so until
+            // they expire they all count as outstanding, which only slows admission down.
+            queue.admittedAt.put(state.getAdmittedUpTo(), now);
+            queues.put(state.getEventId(), queue);
+        }
+        for (QueueToken token : queueTokenRepo.findAll()) {
+            EventQueue queue = queues.computeIfAbsent(token.getEventId(), id -> new EventQueue(0, 0));
+            if (token.getSeq() >= queue.nextSeq.get()) {
+                queue.nextSeq.set(token.getSeq() + 1);
+            }
+            tokens.put(token.getToken(), token);
+        }
+        logger.info("Restored {} admission queues with {} tokens", queues.size(), tokens.size());
+    }
+
+    private QueueStatusResponse status(QueueToken token, EventQueue queue) {
+        long ahead = queue == null ? token.getSeq() : Math.max(0, token.getSeq() - queue.admittedUpTo);
+        boolean admitted = !enabled || isAdmitted(token);
+        boolean soldOut = queue != null && queue.soldOut;
+        return new QueueStatusResponse(token.getToken(), token.getEventId(), admitted ? 0 : ahead, admitted, soldOut);
+    }
+}
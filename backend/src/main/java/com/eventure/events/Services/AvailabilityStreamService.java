@@ -0,0 +1,226 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.AvailabilityUpdate;
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.Events;
+import com.eventure.events.repository.EventRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live ticket availability over Server-Sent Events. Inventory changes only mark
+ * the event dirty; a scheduled tick reads each dirty event once, serializes the
+ * update once and writes it to every subscriber, so an event gets at most one
+ * push per tick however many tickets were sold in between. Connections are
+ * async servlet requests and hold no thread while idle.
+ *
+ * The writes themselves run on availability.stream.senders single thread
+ * senders, each subscriber always on the same one so its updates stay in order.
+ * A client with a full TCP buffer then holds up one sender, never the shared
+ * scheduler the other jobs run on.
+ */
+@Service
+public class AvailabilityStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityStreamService.class);
+
+    private final EventRepo eventRepo;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int maxConnections;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ThreadPoolExecutor[] senders;
+    private final Counter pushes;
+    private final Counter dropped;
+
+    @Autowired
+    public AvailabilityStreamService(EventRepo eventRepo, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                     @Value("${availability.stream.timeout-ms:1800000}") long timeoutMillis,
+                                     @Value("${availability.stream.max-connections:20000}") int maxConnections,
+                                     @Value("${availability.stream.senders:4}") int senderCount,
+                                     @Value("${availability.stream.sender-queue-capacity:50000}") int senderQueueCapacity) {
+        this.eventRepo = eventRepo;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConnections = maxConnections;
+        this.senders = new ThreadPoolExecutor[senderCount];
+        for (int i = 0; i < senderCount; i++) {
+            String name = "sse-sender-" + (i + 1);
+            senders[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(senderQueueCapacity), r -> {
+                        Thread t = new Thread(r, name);
+                        t.setDaemon(true);
+                        return t;
+                    });
+        }
+        Gauge.builder("availability.stream.connections", connections, AtomicInteger::get)
+                .description("Open availability streams")
+                .register(meterRegistry);
+        Gauge.builder("availability.stream.send.queue", senders, AvailabilityStreamService::queued)
+                .description("Writes waiting for a sender thread")
+                .register(meterRegistry);
+        this.pushes = meterRegistry.counter("availability.stream.pushes");
+        this.dropped = meterRegistry.counter("availability.stream.dropped");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor sender : senders) {
+            sender.shutdownNow();
+        }
+    }
+
+    public SseEmitter subscribe(String eventId) {
+        Optional<Events> inventory = eventRepo.findInventoryById(eventId);
+        if (inventory.isEmpty()) {
+            throw new MyException("Event does not exist");
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new MyException("Too many open availability streams, try again later.");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // compute() so a concurrent unsubscribe cannot drop the set this emitter is added to
+        subscribers.compute(eventId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.<SseEmitter>newKeySet();
+            set.add(emitter);
+            return set;
+        });
+        Runnable remove = () -> unsubscribe(eventId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // Current numbers right away, later ones only when they change
+        String snapshot = toJson(eventId, inventory.get());
+        if (snapshot != null) {
+            send(eventId, emitter, SseEmitter.event().name("availability").data(snapshot, MediaType.APPLICATION_JSON));
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onEventChanged(EventChangedEvent change) {
+        if (change.getKind() != EventChangedEvent.Kind.CREATED && subscribers.containsKey(change.getEventId())) {
+            dirty.add(change.getEventId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${availability.stream.interval-ms:250}")
+    public void flush() {
+        for (String eventId : dirty.toArray(new String[0])) {
+            dirty.remove(eventId);
+            Set<SseEmitter> emitters = subscribers.get(eventId);
+            if (emitters == null || emitters.isEmpty()) {
+                continue;
+            }
+            try {
+                eventRepo.findInventoryById(eventId).ifPresent(event -> {
+                    String json = toJson(eventId, event);
+                    if (json != null) {
+                        boolean queued = true;
+                        for (SseEmitter emitter : emitters) {
+                            queued &= sendAsync(eventId, emitter, SseEmitter.event().name("availability").data(json, MediaType.APPLICATION_JSON));
+                        }
+                        if (!queued) {
+                            // Senders are backed up, the latest numbers go out again on the next tick
+                            dirty.add(eventId);
+                        }
+                        pushes.increment();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Try again on the next tick
+                dirty.add(eventId);
+                logger.warn("Could not push availability for event {}: {}", eventId, e.getMessage());
+            }
+        }
+    }
+
+    // Keeps proxies from closing idle streams and clears out dead connections
+    @Scheduled(fixedDelayString = "${availability.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach((eventId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                sendAsync(eventId, emitter, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    // False when the subscriber's sender queue is full and the write was dropped
+    private boolean sendAsync(String eventId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        ThreadPoolExecutor sender = senders[Math.floorMod(System.identityHashCode(emitter), senders.length)];
+        try {
+            sender.execute(() -> send(eventId, emitter, event));
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            return false;
+        }
+    }
+
+    private static double queued(ThreadPoolExecutor[] senders) {
+        int queued = 0;
+        for (ThreadPoolExecutor sender : senders) {
+            queued += sender.getQueue().size();
+        }
+        return queued;
+    }
+
+    private void send(String eventId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            unsubscribe(eventId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(String eventId, SseEmitter emitter) {
+        subscribers.computeIfPresent(eventId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    // Serialized once per event and tick, then written as-is to every subscriber
+    private String toJson(String eventId, Events event) {
+        try {
+            return objectMapper.writeValueAsString(new AvailabilityUpdate(
+                    eventId, event.getAvailable_tickets(), event.getEventCapacity(), event.getEventAttendees()));
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize availability for event {}: {}", eventId, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.BookingDetails;
+import com.eventure.events.model.MigrationState;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.MigrationStateRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Copies the event id of old bookings from their tickets to the top level
+ * eventId field and fills in createdAt. Runs in the background after startup in
+ * small bulk batches while the app keeps serving; the last processed _id is
+ * checkpointed in Migrations so a restart resumes where it stopped.
+ */
+@Service
+public class BookingBackfillMigration {
+    private static final Logger logger = LoggerFactory.getLogger(BookingBackfillMigration.class);
+    static final String MIGRATION_ID = "booking-eventid-backfill";
+
+    private final BookingRepo bookingRepo;
+    private final MigrationStateRepo migrationStateRepo;
+    private final int batchSize;
+    private final long pauseMillis;
+    private volatile boolean stopped;
+
+    @Autowired
+    public BookingBackfillMigration(BookingRepo bookingRepo, MigrationStateRepo migrationStateRepo,
+                                    @Value("${migration.booking-backfill.batch-size:500}") int batchSize,
+                                    @Value("${migration.booking-backfill.pause-ms:200}") long pauseMillis) {
+        this.bookingRepo = bookingRepo;
+        this.migrationStateRepo = migrationStateRepo;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread worker = new Thread(this::run, "booking-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+
+    void run() {
+        try {
+            MigrationState state = migrationStateRepo.findById(MIGRATION_ID)
+                    .orElseGet(() -> MigrationState.builder().id(MIGRATION_ID).build());
+            if (state.isDone()) {
+                return;
+            }
+            logger.info("Booking backfill starting after id {}", state.getLastProcessedId());
+            while (!stopped) {
+                List<BookingDetails> batch = bookingRepo.findBookingsMissingEventId(state.getLastProcessedId(), batchSize);
+                if (batch.isEmpty()) {
+                    state.setDone(true);
+                    state.setUpdatedAt(new Date());
+                    migrationStateRepo.save(state);
+                    logger.info("Booking backfill finished, {} bookings updated", state.getProcessed());
+                    return;
+                }
+                state.setProcessed(state.getProcessed() + bookingRepo.backfillEventIds(batch));
+                state.setLastProcessedId(batch.get(batch.size() - 1).getId());
+                state.setUpdatedAt(new Date());
+                migrationStateRepo.save(state);
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Booking backfill stopped, it resumes from the last checkpoint on the next start: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.eventure.events.Services;
 
 import com.eventure.events.dto.BookingRequest;
 import com.eventure.events.dto.BookingResponse;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.OutboxMessage;
 import com.eventure.events.dto.PdfTicketDataDto;
 import com.eventure.events.dto.Ticket;
 import com.eventure.events.exception.MyException;
+import com.eventure.events.exception.RenderBusyException;
 import com.eventure.events.model.BookingDetails;
 import com.eventure.events.model.Events;
 import com.eventure.events.model.Users;
@@ -13,15 +16,17 @@ import com.eventure.events.repository.EventRepo;
 import com.eventure.events.repository.UserRepo;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
-import java.util.HashMap;
-import java.util.Map;
-import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
 @Service
 public class BookingService {
@@ -30,18 +35,24 @@ public class BookingService {
     private final BookingRepo bookingRepo;
     private final EventRepo eventRepo;
     private final UserRepo userRepo;
-    private final EmailService emailService;
     private final QrCodeService qrcodeService;
     private final PdfTicketService pdfTicketService;
+    private final TicketInventory ticketInventory;
+    private final TicketHoldService ticketHoldService;
+    private final TicketIdGenerator ticketIdGenerator;
+    private final RenderBulkhead renderBulkhead;
 
     @Autowired
-    public BookingService(BookingRepo bookingRepo, EventRepo eventRepo, UserRepo userRepo, EmailService emailService, QrCodeService qrcodeService, PdfTicketService pdfTicketService) {
+    public BookingService(BookingRepo bookingRepo, EventRepo eventRepo, UserRepo userRepo, QrCodeService qrcodeService, PdfTicketService pdfTicketService, TicketInventory ticketInventory, TicketHoldService ticketHoldService, TicketIdGenerator ticketIdGenerator, RenderBulkhead renderBulkhead) {
         this.bookingRepo = bookingRepo;
         this.eventRepo = eventRepo;
         this.userRepo = userRepo;
-        this.emailService = emailService;
         this.qrcodeService = qrcodeService;
         this.pdfTicketService = pdfTicketService;
+        this.ticketInventory = ticketInventory;
+        this.ticketHoldService = ticketHoldService;
+        this.ticketIdGenerator = ticketIdGenerator;
+        this.renderBulkhead = renderBulkhead;
     }
 
     public BookingResponse bookEvent(BookingRequest request) {
@@ -51,63 +62,61 @@ public class BookingService {
         Events event = eventRepo.findById(request.getEventId())
                 .orElseThrow(() -> new MyException("Event not found with id: " + request.getEventId()));
 
-        if (request.getTicketCount() > event.getAvailable_tickets()) {
-            throw new MyException("Only " + event.getAvailable_tickets() + " tickets available, but "
-                    + request.getTicketCount() + " requested.");
+        if (request.getTicketCount() <= 0) {
+            throw new MyException("Ticket count must be greater than zero.");
         }
 
         if (!request.isPaymentStatus()) {
             throw new MyException("Payment was not successful, booking aborted.");
         }
 
+        // Tickets held at checkout are already taken, otherwise take them now
+        boolean held = request.getHoldId() != null && ticketHoldService.confirmHold(
+                request.getHoldId(), request.getUserId(), event.getId(), request.getTicketCount());
+        if (!held) {
+            if (request.getTicketCount() > event.getAvailable_tickets()) {
+                throw new MyException("Only " + event.getAvailable_tickets() + " tickets available, but "
+                        + request.getTicketCount() + " requested.");
+            }
+
+            // Take the tickets with a single guarded update so parallel bookings cannot oversell
+            if (!ticketInventory.reserve(event.getId(), request.getTicketCount())) {
+                throw new MyException("Not enough tickets available, " + request.getTicketCount() + " requested.");
+            }
+            event.setAvailable_tickets(event.getAvailable_tickets() - request.getTicketCount());
+            event.setEventAttendees(event.getEventAttendees() + request.getTicketCount());
+        }
+
         List<Ticket> ticketList = new ArrayList<>();
         for (int i = 0; i < request.getTicketCount(); i++) {
-            String ticketId = "T" + UUID.randomUUID().toString().substring(0, 8);
+            String ticketId = ticketIdGenerator.nextId();
             Ticket ticket = new Ticket(ticketId, request.getTicketPrice(), request.getEventId(), ticketId, null);
             ticketList.add(ticket);
         }
 
         BookingDetails booking = new BookingDetails();
         booking.setUserId(request.getUserId());
+        booking.setEventId(event.getId());
+        booking.setCreatedAt(LocalDateTime.now());
         booking.setTicketCount(request.getTicketCount());
         booking.setTotalTicketPrice(request.getTotalTicketPrice());
         booking.setTickets(ticketList);
         booking.setBookingStatus("CONFIRMED");
+        // Confirmation email goes out through the outbox, recorded by the same insert
+        booking.setOutbox(new ArrayList<>(List.of(OutboxMessage.pending(OutboxMessage.BOOKING_CONFIRMATION))));
 
-        BookingDetails savedBooking = bookingRepo.save(booking);
-
-        event.setAvailable_tickets(event.getAvailable_tickets() - request.getTicketCount());
-        event.setEventAttendees(event.getEventAttendees() + request.getTicketCount());
-
-        eventRepo.save(event);
-
-        // Send confirmation email
+        BookingDetails savedBooking;
         try {
-            Map<String, String> emailVariables = new HashMap<>();
-            emailVariables.put("userName", user.getFirstName() + " " + user.getLastName());
-            emailVariables.put("eventName", event.getEventName());
-            emailVariables.put("eventDate", event.getEventDateTime().toString());
-            emailVariables.put("eventAddress", event.getAddress() + ", " + event.getCity() + ", " + event.getState() + " " + event.getZipCode());
-            emailVariables.put("eventInstruction", event.getEventInstruction() != null ? event.getEventInstruction() : "No specific instructions provided.");
-            
-            String gmapUrl = String.format("https://www.google.com/maps/search/?api=1&query=%s,%s,%s,%s",
-                    event.getAddress(), event.getCity(), event.getState(), event.getZipCode());
-            emailVariables.put("gmapUrl", gmapUrl);
-
-            System.out.println("Attempting to send email to: " + user.getEmail());
-            emailService.sendHtmlEmail(
-                user.getEmail(),
-                "Booking Confirmation - " + event.getEventName(),
-                "Emailtemplate/booking-confirmation.html",
-                emailVariables,
-                savedBooking.getTickets()
-            );
-            System.out.println("Email sent successfully to: " + user.getEmail());
-        } catch (Exception e) {
-            System.err.println("Failed to send confirmation email: " + e.getMessage());
-            e.printStackTrace(); // This will print the full stack trace
+            savedBooking = bookingRepo.save(booking);
+        } catch (RuntimeException e) {
+            // Booking never got written, hand the reserved tickets back
+            ticketInventory.release(event.getId(), request.getTicketCount());
+            throw e;
         }
 
+        // Have the QR codes ready by the time the tickets are opened
+        qrcodeService.prerender(ticketList.stream().map(Ticket::getTicketId).collect(Collectors.toList()));
+
         return new BookingResponse(savedBooking, user, event);
     }
 
@@ -125,8 +134,10 @@ public class BookingService {
             for (Ticket ticket : booking.getTickets()) {
                 if (ticket.getTicketId() != null && !ticket.getTicketId().isEmpty()) {
                     try {
-                        String qrBase64 = qrcodeService.generateQrCodeBase64(ticket.getTicketId(), 200, 200);
+                        String qrBase64 = qrcodeService.generateQrCodeBase64(ticket.getTicketId(), QrCodeService.DETAIL_SIZE, QrCodeService.DETAIL_SIZE);
                         ticket.setQrCodeImageBase64(qrBase64);
+                    } catch (RenderBusyException e) {
+                        throw e;
                     } catch (Exception e) {
                         logger.error("Failed to generate QR code for ticketId {}: {}", ticket.getTicketId(), e.getMessage(), e);
                         ticket.setQrCodeImageBase64(null); // Or an error indicator
@@ -140,9 +151,9 @@ public class BookingService {
         }
 
         // Fetch associated event and user details to return a comprehensive BookingResponse
-        Events event = null;
-        if (booking.getTickets() != null && !booking.getTickets().isEmpty() && booking.getTickets().get(0).getEventId() != null) {
-            event = eventRepo.findById(booking.getTickets().get(0).getEventId()).orElse(null);
+        EventSummary event = null;
+        if (booking.resolveEventId() != null) {
+            event = eventRepo.findSummaryById(booking.resolveEventId()).orElse(null);
         }
         if (event == null) {
             logger.warn("Event details not found for booking ID: {}", bookingId);
@@ -160,6 +171,29 @@ public class BookingService {
         return new BookingResponse(booking, user, event);
     }
 
+    // ETag of getBookingDetailsWithQrCodes, built from versions only
+    public String getBookingEtag(String bookingId, String requestingUserId) {
+        BookingDetails booking = bookingRepo.findVersionById(bookingId)
+                .orElseThrow(() -> new MyException("Booking not found with ID: " + bookingId));
+        if (!booking.getUserId().equals(requestingUserId)) {
+            throw new MyException("User not authorized to view this booking.");
+        }
+        long eventVersion = -1;
+        if (booking.resolveEventId() != null) {
+            eventVersion = eventRepo.findVersionById(booking.resolveEventId()).map(Events::getVersion).orElse(-1L);
+        }
+        return etag(booking.getId(), booking.getVersion(), eventVersion);
+    }
+
+    public static String etag(BookingResponse response) {
+        long eventVersion = response.getEvent() == null ? -1 : response.getEvent().getVersion();
+        return etag(response.getBookingId(), response.getBooking().getVersion(), eventVersion);
+    }
+
+    private static String etag(String bookingId, long bookingVersion, long eventVersion) {
+        return "\"" + bookingId + "-" + bookingVersion + "-" + eventVersion + "\"";
+    }
+
     public String cancelBooking(String bookingId, String userId) {
         BookingDetails booking = bookingRepo.findById(bookingId)
                 .orElseThrow(() -> new MyException("Booking not found with id: " + bookingId));
@@ -172,44 +206,20 @@ public class BookingService {
             throw new MyException("Booking is already cancelled.");
         }
 
-        // Get user and event details for the email
-        Users user = userRepo.findById(userId)
-                .orElseThrow(() -> new MyException("User not found with id: " + userId));
-
-        String eventId = booking.getTickets().get(0).getEventId();
-        Events event = eventRepo.findById(eventId)
-                .orElseThrow(() -> new MyException("Event not found with id: " + eventId));
-
-        // Update booking status
-        booking.setBookingStatus("CANCELLED");
-        bookingRepo.save(booking);
-
-        // Update event details
-        event.setAvailable_tickets(event.getAvailable_tickets() + booking.getTicketCount());
-        event.setEventAttendees(Math.max(0, event.getEventAttendees() - booking.getTicketCount()));
-        eventRepo.save(event);
+        String eventId = booking.resolveEventId();
+        if (eventId == null || !eventRepo.existsById(eventId)) {
+            throw new MyException("Event not found with id: " + eventId);
+        }
 
-        // Send cancellation email
-        try {
-            Map<String, String> emailVariables = new HashMap<>();
-            emailVariables.put("userName", user.getFirstName() + " " + user.getLastName());
-            emailVariables.put("eventName", event.getEventName());
-            emailVariables.put("eventDate", event.getEventDateTime().toString());
-            emailVariables.put("eventAddress", event.getAddress() + ", " + event.getCity() + ", " + event.getState() + " " + event.getZipCode());
-
-            emailService.sendHtmlEmail(
-                user.getEmail(),
-                "Booking Cancelled - " + event.getEventName(),
-                "Emailtemplate/booking-cancellation.html",
-                emailVariables,
-                null
-            );
-            System.out.println("Cancellation email sent successfully to: " + user.getEmail());
-        } catch (Exception e) {
-            System.err.println("Failed to send cancellation email: " + e.getMessage());
-            e.printStackTrace();
-            // Don't throw the exception as the booking is already cancelled
+        // Update booking status, only one concurrent cancel request can win this.
+        // The cancellation email is queued in the same update, and the winner gives
+        // the tickets back through the same inventory path used by bookEvent.
+        boolean cancelled = ticketInventory.releaseAfter(eventId, booking.getTicketCount(),
+                () -> bookingRepo.markCancelled(bookingId, OutboxMessage.pending(OutboxMessage.BOOKING_CANCELLATION)));
+        if (!cancelled) {
+            throw new MyException("Booking is already cancelled.");
         }
+        booking.setBookingStatus("CANCELLED");
 
         return "Booking cancelled successfully.";
     }
@@ -223,8 +233,8 @@ public class BookingService {
         }
 
         Events event = null;
-        if (booking.getTickets() != null && !booking.getTickets().isEmpty() && booking.getTickets().get(0).getEventId() != null) {
-            event = eventRepo.findById(booking.getTickets().get(0).getEventId())
+        if (booking.resolveEventId() != null) {
+            event = eventRepo.findById(booking.resolveEventId())
                     .orElseThrow(() -> new MyException("Event details not found for booking: " + bookingId));
         } else {
              throw new MyException("Cannot determine event for booking: " + bookingId);
@@ -236,11 +246,25 @@ public class BookingService {
         return new PdfTicketDataDto(booking, event, user);
     }
 
-    public ByteArrayResource generatePdf(String bookingId, String requestingUserId) throws IOException {
+    // Lookups, the ownership check and the render pool slot are taken now, so they can still fail
+    // with a normal error response. The PDF is rendered on the pool into a scratch buffer and copied
+    // to the response on the MVC thread, so slow clients never hold a render thread. The slot is also
+    // given back when the async request ends, in case it timed out before the body ever ran.
+    public StreamingResponseBody generatePdf(String bookingId, String requestingUserId, WebAsyncManager asyncManager) {
         PdfTicketDataDto data = getPdfGenerationData(bookingId, requestingUserId);
-        // PdfTicketService now needs to accept PdfTicketDataDto or you extract from it here
-        byte[] pdfBytes = pdfTicketService.generateTicketPdf(data.getBooking(), data.getEvent(), data.getUser());
-        return new ByteArrayResource(pdfBytes);
+        RenderBulkhead.Slot slot = renderBulkhead.reserve();
+        asyncManager.registerCallableInterceptor(RenderBulkhead.Slot.class.getName(), new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                slot.release();
+            }
+        });
+        return out -> {
+            try (PdfTicketService.RenderedPdf pdf = slot.call(
+                    () -> pdfTicketService.renderTicketPdf(data.getBooking(), data.getEvent(), data.getUser()))) {
+                pdf.writeTo(out);
+            }
+        };
     }
 
 }
@@ -0,0 +1,146 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.Events;
+import com.eventure.events.repository.EventRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through LRU cache for event documents used by the detail view.
+ * Concurrent misses for the same id wait on one Mongo read instead of each
+ * doing their own. Entries are dropped on every EventChangedEvent, so updates
+ * and ticket sales on this instance show up on the next read; changes made on
+ * other instances show up once the entry is older than
+ * {@code event.cache.ttl-ms}.
+ */
+@Service
+public class EventCache {
+
+    private final EventRepo eventRepo;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final Map<String, Load> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Timer loadTime;
+
+    private static final class Entry {
+        private final Events event;
+        private final long loadedAt;
+
+        private Entry(Events event, long loadedAt) {
+            this.event = event;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static final class Load {
+        private final CompletableFuture<Optional<Events>> future = new CompletableFuture<>();
+        // Set when the event changes while it is read, the result is then not cached
+        private volatile boolean stale;
+    }
+
+    @Autowired
+    public EventCache(EventRepo eventRepo, MeterRegistry meterRegistry,
+                      @Value("${event.cache.max-size:1000}") int maxSize,
+                      @Value("${event.cache.ttl-ms:5000}") long ttlMillis) {
+        this.eventRepo = eventRepo;
+        this.ttlMillis = ttlMillis;
+        this.hits = meterRegistry.counter("event.cache.gets", "result", "hit");
+        this.misses = meterRegistry.counter("event.cache.gets", "result", "miss");
+        this.evictions = meterRegistry.counter("event.cache.evictions");
+        this.loadTime = Timer.builder("event.cache.load")
+                .description("Time to load an event from Mongo on a cache miss")
+                .register(meterRegistry);
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+        Gauge.builder("event.cache.size", entries, Map::size)
+                .description("Events held in the detail cache")
+                .register(meterRegistry);
+    }
+
+    public Optional<Events> get(String eventId) {
+        Events cached = fresh(eventId);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+
+        Load mine = new Load();
+        Load running = inFlight.putIfAbsent(eventId, mine);
+        if (running != null) {
+            try {
+                return running.future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            long loadedAt = System.currentTimeMillis();
+            Optional<Events> loaded = loadTime.record(() -> eventRepo.findById(eventId));
+            // Missing events are not cached, they may be created later
+            if (loaded.isPresent() && !mine.stale) {
+                Entry entry = new Entry(loaded.get(), loadedAt);
+                entries.put(eventId, entry);
+                // A change between the check and the put has already run its remove
+                if (mine.stale) {
+                    entries.remove(eventId, entry);
+                }
+            }
+            mine.future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(eventId, mine);
+        }
+    }
+
+    @EventListener
+    public void onEventChanged(EventChangedEvent change) {
+        Load running = inFlight.get(change.getEventId());
+        if (running != null) {
+            running.stale = true;
+        }
+        entries.remove(change.getEventId());
+    }
+
+    private Events fresh(String eventId) {
+        Entry entry = entries.get(eventId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.loadedAt >= ttlMillis) {
+            entries.remove(eventId, entry);
+            return null;
+        }
+        return entry.event;
+    }
+}
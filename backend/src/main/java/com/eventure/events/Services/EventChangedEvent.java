@@ -0,0 +1,33 @@
+package com.eventure.events.Services;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published whenever an event document changes, so read caches can drop or
+ * rebuild what they hold for it.
+ */
+public class EventChangedEvent extends ApplicationEvent {
+
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        INVENTORY
+    }
+
+    private final String eventId;
+    private final Kind kind;
+
+    public EventChangedEvent(Object source, String eventId, Kind kind) {
+        super(source);
+        this.eventId = eventId;
+        this.kind = kind;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
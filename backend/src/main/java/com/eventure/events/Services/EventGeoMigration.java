@@ -0,0 +1,60 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.MigrationState;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.MigrationStateRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Copies location into the GeoJSON geo field for events geocoded before it
+ * existed, so they show up in /api/events/nearby. A single server side
+ * updateMany, recorded in Migrations once done. Each updated event is announced
+ * with an EventChangedEvent so caches drop the old version.
+ */
+@Service
+public class EventGeoMigration {
+    private static final Logger logger = LoggerFactory.getLogger(EventGeoMigration.class);
+    static final String MIGRATION_ID = "event-geo-points";
+
+    private final EventRepo eventRepo;
+    private final MigrationStateRepo migrationStateRepo;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public EventGeoMigration(EventRepo eventRepo, MigrationStateRepo migrationStateRepo, ApplicationEventPublisher eventPublisher) {
+        this.eventRepo = eventRepo;
+        this.migrationStateRepo = migrationStateRepo;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        try {
+            MigrationState state = migrationStateRepo.findById(MIGRATION_ID)
+                    .orElseGet(() -> MigrationState.builder().id(MIGRATION_ID).build());
+            if (state.isDone()) {
+                return;
+            }
+            List<String> updated = eventRepo.backfillGeoPoints();
+            for (String eventId : updated) {
+                eventPublisher.publishEvent(new EventChangedEvent(this, eventId, EventChangedEvent.Kind.UPDATED));
+            }
+            state.setProcessed(updated.size());
+            state.setDone(true);
+            state.setUpdatedAt(new Date());
+            migrationStateRepo.save(state);
+            logger.info("Geo point backfill finished, {} events updated", state.getProcessed());
+        } catch (RuntimeException e) {
+            logger.error("Geo point backfill failed, it runs again on the next start: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.MigrationState;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.MigrationStateRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Moves the inline base64 banners of old events into EventImageService and
+ * leaves only the imageId on the event. Same approach as
+ * BookingBackfillMigration: small batches in the background, checkpointed in
+ * Migrations. Images that cannot be stored because they are not valid base64
+ * are left inline on the event and counted as skipped, so no banner is lost.
+ */
+@Service
+public class EventImageMigration {
+    private static final Logger logger = LoggerFactory.getLogger(EventImageMigration.class);
+    static final String MIGRATION_ID = "event-image-store";
+
+    private final EventRepo eventRepo;
+    private final MigrationStateRepo migrationStateRepo;
+    private final EventImageService eventImageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final long pauseMillis;
+    private volatile boolean stopped;
+
+    @Autowired
+    public EventImageMigration(EventRepo eventRepo, MigrationStateRepo migrationStateRepo, EventImageService eventImageService,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${migration.event-images.batch-size:20}") int batchSize,
+                               @Value("${migration.event-images.pause-ms:200}") long pauseMillis) {
+        this.eventRepo = eventRepo;
+        this.migrationStateRepo = migrationStateRepo;
+        this.eventImageService = eventImageService;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread worker = new Thread(this::run, "event-image-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+
+    void run() {
+        try {
+            MigrationState state = migrationStateRepo.findById(MIGRATION_ID)
+                    .orElseGet(() -> MigrationState.builder().id(MIGRATION_ID).build());
+            if (state.isDone()) {
+                return;
+            }
+            logger.info("Event image migration starting after id {}", state.getLastProcessedId());
+            while (!stopped) {
+                List<Events> batch = eventRepo.findEventsWithInlineImage(state.getLastProcessedId(), batchSize);
+                if (batch.isEmpty()) {
+                    state.setDone(true);
+                    state.setUpdatedAt(new Date());
+                    migrationStateRepo.save(state);
+                    logger.info("Event image migration finished, {} events updated, {} skipped", state.getProcessed(), state.getSkipped());
+                    return;
+                }
+                int moved = 0;
+                for (Events event : batch) {
+                    if (moveImage(event)) {
+                        moved++;
+                    }
+                }
+                state.setProcessed(state.getProcessed() + moved);
+                state.setSkipped(state.getSkipped() + batch.size() - moved);
+                state.setLastProcessedId(batch.get(batch.size() - 1).getId());
+                state.setUpdatedAt(new Date());
+                migrationStateRepo.save(state);
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Event image migration stopped, it resumes from the last checkpoint on the next start: {}", e.getMessage(), e);
+        }
+    }
+
+    // False when the image could not be stored, the inline copy then stays on the event
+    private boolean moveImage(Events event) {
+        String imageId = null;
+        if (!event.getEventImageBase64().isEmpty()) {
+            try {
+                imageId = eventImageService.storeExisting(event.getEventImageBase64());
+            } catch (MyException e) {
+                logger.warn("Skipping banner image of event {}, it stays inline: {}", event.getId(), e.getMessage());
+                return false;
+            }
+        }
+        eventRepo.replaceInlineImage(event.getId(), imageId);
+        eventPublisher.publishEvent(new EventChangedEvent(this, event.getId(), EventChangedEvent.Kind.UPDATED));
+        return true;
+    }
+}
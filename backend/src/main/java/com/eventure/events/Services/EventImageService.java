@@ -0,0 +1,199 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.MyException;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Event banner images in GridFS, keyed by the SHA-256 of the uploaded bytes.
+ * Only JPEG, PNG, WebP and GIF are accepted, recognised by their leading bytes;
+ * the type a client claims in its data URL is ignored, since the original is
+ * served back with the stored type.
+ * The upload is kept as "original" and JPEG "card" and "thumb" variants are
+ * rendered once when it is first stored. Formats ImageIO cannot decode (WebP and
+ * the like) are kept as the original only, and every variant serves it. Since
+ * the key is the content, stored files never change and the same upload is only
+ * stored once.
+ */
+@Service
+public class EventImageService {
+    public static final String ORIGINAL = "original";
+    public static final String CARD = "card";
+    public static final String THUMB = "thumb";
+    public static final Set<String> VARIANTS = Set.of(ORIGINAL, CARD, THUMB);
+    public static final Set<String> CONTENT_TYPES = Set.of("image/jpeg", "image/png", "image/webp", "image/gif");
+
+    private static final int MAX_IMAGE_BYTES = 1024 * 1024 * 2;
+    private static final Map<String, Integer> VARIANT_WIDTHS = new LinkedHashMap<>();
+    static {
+        VARIANT_WIDTHS.put(CARD, 640);
+        VARIANT_WIDTHS.put(THUMB, 200);
+    }
+
+    private final GridFsTemplate gridFsTemplate;
+
+    @Autowired
+    public EventImageService(GridFsTemplate gridFsTemplate) {
+        this.gridFsTemplate = gridFsTemplate;
+    }
+
+    /**
+     * Stores an image sent as a data URL ("data:image/png;base64,...") or plain
+     * base64 and returns its id.
+     */
+    public String store(String base64Image) {
+        return store(base64Image, true);
+    }
+
+    /**
+     * Stores the inline banner of an existing event. It was accepted when the
+     * event was created, so the upload size limit does not apply.
+     */
+    public String storeExisting(String base64Image) {
+        return store(base64Image, false);
+    }
+
+    private String store(String base64Image, boolean limitSize) {
+        String payload = base64Image;
+        int comma = base64Image.indexOf(',');
+        if (base64Image.startsWith("data:") && comma > 0) {
+            payload = base64Image.substring(comma + 1);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(payload);
+        } catch (IllegalArgumentException e) {
+            throw new MyException("Event banner image is not valid base64.");
+        }
+        if (limitSize && bytes.length > MAX_IMAGE_BYTES) {
+            throw new MyException("Event banner image is too large. Max size allowed is 2MB.");
+        }
+        String contentType = sniffContentType(bytes);
+        if (contentType == null) {
+            throw new MyException("Event banner image must be a JPEG, PNG, WebP or GIF.");
+        }
+        return store(bytes, contentType);
+    }
+
+    private String store(byte[] bytes, String contentType) {
+        String imageId = sha256(bytes);
+        if (findFile(imageId, ORIGINAL) != null) {
+            return imageId;
+        }
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            image = null;
+        }
+        // Variants go first, a stored original means the whole set is there
+        if (image != null) {
+            for (Map.Entry<String, Integer> variant : VARIANT_WIDTHS.entrySet()) {
+                storeFile(imageId, variant.getKey(), toJpeg(resize(image, variant.getValue())), "image/jpeg");
+            }
+        }
+        storeFile(imageId, ORIGINAL, bytes, contentType);
+        return imageId;
+    }
+
+    // Null when the image does not exist. Images stored without variants serve the original.
+    public GridFsResource find(String imageId, String variant) {
+        GridFSFile file = findFile(imageId, variant);
+        if (file == null && !ORIGINAL.equals(variant)) {
+            file = findFile(imageId, ORIGINAL);
+        }
+        return file == null ? null : gridFsTemplate.getResource(file);
+    }
+
+    private GridFSFile findFile(String imageId, String variant) {
+        return gridFsTemplate.find(new Query(Criteria.where("filename").is(fileName(imageId, variant)))).first();
+    }
+
+    private void storeFile(String imageId, String variant, byte[] bytes, String contentType) {
+        Document metadata = new Document("imageId", imageId).append("variant", variant);
+        gridFsTemplate.store(new ByteArrayInputStream(bytes), fileName(imageId, variant), contentType, metadata);
+    }
+
+    private static String fileName(String imageId, String variant) {
+        return imageId + "/" + variant;
+    }
+
+    // Null for anything that is not one of CONTENT_TYPES
+    static String sniffContentType(byte[] b) {
+        if (b.length >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (b.length >= 8 && (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G'
+                && b[4] == '\r' && b[5] == '\n' && b[6] == 0x1A && b[7] == '\n') {
+            return "image/png";
+        }
+        if (b.length >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8'
+                && (b[4] == '7' || b[4] == '9') && b[5] == 'a') {
+            return "image/gif";
+        }
+        if (b.length >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxWidth) {
+        // Never upscale, small uploads only get re-encoded
+        int width = Math.min(maxWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha, transparent parts end up white
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] toJpeg(BufferedImage image) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode image variant", e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
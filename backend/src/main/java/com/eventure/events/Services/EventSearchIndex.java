@@ -0,0 +1,249 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.EventSearchResponse;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.exception.MyException;
+import com.eventure.events.repository.EventRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over eventName, desc, eventCategory and city. Built
+ * from Mongo at startup; changed events are queued by EventChangedEvent and
+ * re-read in one batch per refresh, so searches never touch the database.
+ * Changes made through another instance publish nothing here, so the index is
+ * also rebuilt from scratch every search.rebuild-ms.
+ * Results are ranked by field-weighted term frequency times idf, all query
+ * terms have to match. Also feeds EventSuggester.
+ */
+@Service
+public class EventSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(EventSearchIndex.class);
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int CITY_WEIGHT = 2;
+    private static final int DESC_WEIGHT = 1;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final EventRepo eventRepo;
+    private final EventSuggester suggester;
+    private final Timer queryTime;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, EventSummary> events = new HashMap<>();
+    // term -> event id -> weighted term frequency
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Set<String>> termsByEvent = new HashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public EventSearchIndex(EventRepo eventRepo, EventSuggester suggester, MeterRegistry meterRegistry) {
+        this.eventRepo = eventRepo;
+        this.suggester = suggester;
+        this.queryTime = Timer.builder("search.query")
+                .description("Time to answer a search from the in-memory index")
+                .register(meterRegistry);
+    }
+
+    // Never runs alongside refresh(), so an older full load cannot overwrite a newer batch
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<EventSummary> all = eventRepo.findAllSummaries();
+        lock.writeLock().lock();
+        try {
+            events.clear();
+            postings.clear();
+            termsByEvent.clear();
+            suggester.clear();
+            all.forEach(this::put);
+            suggester.publish();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Search index built with {} events", all.size());
+    }
+
+    @EventListener
+    public void onEventChanged(EventChangedEvent change) {
+        dirty.add(change.getEventId());
+    }
+
+    @Scheduled(fixedDelayString = "${search.rebuild-ms:300000}", initialDelayString = "${search.rebuild-ms:300000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.warn("Search index rebuild failed, keeping the current index: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.refresh-ms:1000}")
+    public synchronized void refresh() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        try {
+            List<EventSummary> loaded = eventRepo.findSummariesByIdIn(ids);
+            lock.writeLock().lock();
+            try {
+                ids.forEach(this::remove);
+                loaded.forEach(this::put);
+                suggester.publish();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            dirty.addAll(ids);
+            logger.warn("Search index refresh failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    public EventSearchResponse search(String query, String category, String city,
+                                      LocalDateTime from, LocalDateTime to, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new MyException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return queryTime.record(() -> {
+            List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+            lock.readLock().lock();
+            try {
+                Map<String, Double> scores = match(terms);
+
+                Map<String, Integer> categories = new TreeMap<>();
+                Map<String, Integer> cities = new TreeMap<>();
+                List<EventSummary> hits = new ArrayList<>();
+                for (String eventId : scores.keySet()) {
+                    EventSummary event = events.get(eventId);
+                    LocalDateTime date = event.getEventDateTime();
+                    if ((from != null && (date == null || date.isBefore(from))) || (to != null && (date == null || !date.isBefore(to)))) {
+                        continue;
+                    }
+                    count(categories, event.getEventCategory());
+                    count(cities, event.getCity());
+                    if ((category == null || category.equalsIgnoreCase(event.getEventCategory()))
+                            && (city == null || city.equalsIgnoreCase(event.getCity()))) {
+                        hits.add(event);
+                    }
+                }
+
+                hits.sort(Comparator.comparingDouble((EventSummary e) -> -scores.get(e.getId()))
+                        .thenComparing(EventSummary::getEventDateTime, Comparator.nullsLast(Comparator.naturalOrder())));
+                int start = Math.min(hits.size(), page * size);
+                int end = Math.min(hits.size(), start + size);
+                return new EventSearchResponse(new ArrayList<>(hits.subList(start, end)), hits.size(), categories, cities);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    // Scores of the events containing every term, all events with score 0 for an empty query
+    private Map<String, Double> match(List<String> terms) {
+        Map<String, Double> scores = new HashMap<>();
+        if (terms.isEmpty()) {
+            events.keySet().forEach(id -> scores.put(id, 0.0));
+            return scores;
+        }
+        // Walk the rarest term's postings and probe the others
+        List<Map<String, Integer>> lists = new ArrayList<>();
+        for (String term : terms) {
+            Map<String, Integer> list = postings.get(term);
+            if (list == null) {
+                return scores;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Map::size));
+        candidates:
+        for (Map.Entry<String, Integer> candidate : lists.get(0).entrySet()) {
+            double score = 0;
+            for (Map<String, Integer> list : lists) {
+                Integer tf = list.get(candidate.getKey());
+                if (tf == null) {
+                    continue candidates;
+                }
+                score += tf * Math.log(1 + (double) events.size() / list.size());
+            }
+            scores.put(candidate.getKey(), score);
+        }
+        return scores;
+    }
+
+    private void put(EventSummary event) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, event.getEventName(), NAME_WEIGHT);
+        addTerms(frequencies, event.getEventCategory(), CATEGORY_WEIGHT);
+        addTerms(frequencies, event.getCity(), CITY_WEIGHT);
+        addTerms(frequencies, event.getDesc(), DESC_WEIGHT);
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(event.getId(), tf));
+        termsByEvent.put(event.getId(), frequencies.keySet());
+        events.put(event.getId(), event);
+        suggester.add(event);
+    }
+
+    private void remove(String eventId) {
+        Set<String> terms = termsByEvent.remove(eventId);
+        if (terms != null) {
+            for (String term : terms) {
+                Map<String, Integer> list = postings.get(term);
+                list.remove(eventId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        EventSummary removed = events.remove(eventId);
+        if (removed != null) {
+            suggester.remove(removed);
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : tokenize(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    private static void count(Map<String, Integer> facet, String value) {
+        if (value != null && !value.isBlank()) {
+            facet.merge(value, 1, Integer::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+}
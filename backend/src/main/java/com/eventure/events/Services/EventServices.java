@@ -1,44 +1,62 @@
 package com.eventure.events.Services;
 
-import com.eventure.events.dto.Ticket;
 import com.eventure.events.model.BookingDetails;
 import com.eventure.events.model.Users;
 import com.eventure.events.repository.BookingRepo;
 import com.eventure.events.repository.UserRepo;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
-import org.json.JSONObject;
 
 import com.eventure.events.exception.MyException;
 import com.eventure.events.model.Events;
 import com.eventure.events.repository.EventRepo;
 import com.eventure.events.dto.EventUpdateRequest;
 import com.eventure.events.dto.EventByUserResponse;
+import com.eventure.events.dto.EventFilter;
+import com.eventure.events.dto.EventPage;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.NearbyEvent;
+import com.eventure.events.dto.PageCursor;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 @Service
 public class EventServices {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final double MAX_NEARBY_RADIUS_KM = 500;
+
     private BookingRepo bookingRepo;
     private EventRepo eventRepo;
     private UserRepo userRepo;
-
-    @Value("${google.maps.api.key}")
-    private String googleMapsApiKey;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private TicketInventory ticketInventory;
+    private ApplicationEventPublisher eventPublisher;
+    private EventImageService eventImageService;
+    private EventCache eventCache;
+    private GeocodingService geocodingService;
 
     @Autowired
-    public EventServices(BookingRepo bookingRepo, EventRepo eventRepo, UserRepo userRepo) {
+    public EventServices(BookingRepo bookingRepo, EventRepo eventRepo, UserRepo userRepo, TicketInventory ticketInventory,
+                         ApplicationEventPublisher eventPublisher, EventImageService eventImageService,
+                         EventCache eventCache, GeocodingService geocodingService) {
         this.bookingRepo = bookingRepo;
         this.eventRepo = eventRepo;
         this.userRepo = userRepo;
+        this.ticketInventory = ticketInventory;
+        this.eventPublisher = eventPublisher;
+        this.eventImageService = eventImageService;
+        this.eventCache = eventCache;
+        this.geocodingService = geocodingService;
     }
 
     public Events createEvent(Events event) {
@@ -50,62 +68,141 @@ public class EventServices {
             throw new MyException("User is not allowed to add an event");
         }
 
-        if (event.getEventImageBase64() != null) {
-            String base64Image = event.getEventImageBase64();
-            int imageSizeBytes = (int) ((base64Image.length() * 3) / 4);
-            if (imageSizeBytes > 1024 * 1024 * 2) {
-                throw new MyException("Event banner image is too large. Max size allowed is 2MB.");
-            }
-        }
         if (event.getAddress() == null || event.getCity() == null || event.getState() == null || event.getZipCode() == null) {
             throw new MyException("Address, city, state, and zip code is required.");
         }
+        // The banner goes to the image store, the event only keeps its id
+        if (event.getEventImageBase64() != null && !event.getEventImageBase64().isEmpty()) {
+            event.setImageId(eventImageService.store(event.getEventImageBase64()));
+        }
+        event.setEventImageBase64(null);
         event.setEventAttendees(0);
         event.setAvailable_tickets(event.getEventCapacity());
-        updateEventGeocoding(event);
-        return eventRepo.save(event);
+        // Coordinates are filled in by GeocodingService after the event is saved
+        Events saved = eventRepo.save(event);
+        eventPublisher.publishEvent(new EventChangedEvent(this, saved.getId(), EventChangedEvent.Kind.CREATED));
+        geocodingService.locate(saved);
+        return saved;
     }
     // Get list of all upcoming events
-    public List<Events> getAllEvents() {
+    public List<EventSummary> getAllEvents() {
         LocalDateTime now = LocalDateTime.now();
-        return eventRepo.findByEventDateTimeAfter(now);
+        return eventRepo.findUpcomingSummaries(now);
+    }
+
+    public EventPage<EventSummary> getEventsPage(EventFilter filter, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new MyException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // One extra row tells us whether there is a next page
+        List<EventSummary> rows = eventRepo.findPage(filter, PageCursor.decode(cursor), limit + 1);
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            EventSummary last = rows.get(limit - 1);
+            nextCursor = new PageCursor(last.getEventDateTime(), last.getId()).encode();
+        }
+        return new EventPage<>(rows, nextCursor);
+    }
+
+    public List<NearbyEvent> getNearbyEvents(double latitude, double longitude, double radiusKm, int page, int size) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new MyException("Invalid coordinates.");
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM) {
+            throw new MyException("radiusKm must be between 0 and " + MAX_NEARBY_RADIUS_KM);
+        }
+        if (page < 0) {
+            throw new MyException("page must not be negative");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new MyException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return eventRepo.findNearby(latitude, longitude, radiusKm, LocalDateTime.now(), page * size, size);
     }
 
     public Optional<Events> getEventById(String id) {
-        if (!eventRepo.existsById(id)) {
+        Optional<Events> event = eventCache.get(id);
+        if (event.isEmpty()) {
             throw new MyException("Event does not exist");
         }
-        return eventRepo.findById(id);
+        return event;
+    }
+
+    // ETag of the detail view from a version-only query, a cached copy may be older than Mongo.
+    // Null if the event does not exist.
+    public String getEventEtag(String id) {
+        return eventRepo.findVersionById(id)
+                .map(EventServices::etag)
+                .orElse(null);
+    }
+
+    public static String etag(Events event) {
+        return "\"" + event.getId() + "-" + event.getVersion() + "\"";
     }
 
     public List<EventByUserResponse> getEventsByUserId(String userId) {
         List<BookingDetails> bookings = bookingRepo.findByUserIdAndBookingStatus(userId, "CONFIRMED");
+        return withEvents(bookings);
+    }
 
-        List<EventByUserResponse> eventByUserResponses = new ArrayList<>();
+    public EventPage<EventByUserResponse> getEventsByUserIdPage(String userId, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new MyException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PageCursor before = PageCursor.decode(cursor);
+        if (before != null && !ObjectId.isValid(before.getId())) {
+            throw new MyException("Invalid page cursor.");
+        }
+        List<BookingDetails> bookings = bookingRepo.findUserBookingsPage(userId, "CONFIRMED", before, limit + 1);
+        String nextCursor = null;
+        if (bookings.size() > limit) {
+            bookings = bookings.subList(0, limit);
+            BookingDetails last = bookings.get(limit - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        // Not backfilled yet, show when the booking was made from its ObjectId
+        for (BookingDetails booking : bookings) {
+            if (booking.getCreatedAt() == null && ObjectId.isValid(booking.getId())) {
+                booking.setCreatedAt(LocalDateTime.ofInstant(new ObjectId(booking.getId()).getDate().toInstant(), ZoneId.systemDefault()));
+            }
+        }
+        return new EventPage<>(withEvents(bookings), nextCursor);
+    }
 
+    // Loads the events for all bookings with one query instead of one per booking
+    private List<EventByUserResponse> withEvents(List<BookingDetails> bookings) {
+        Set<String> eventIds = new HashSet<>();
         for (BookingDetails booking : bookings) {
-            List<Ticket> tickets = booking.getTickets();
-            if (!tickets.isEmpty()) {
-                String eventId = tickets.get(0).getEventId();
-                Optional<Events> event = eventRepo.findById(eventId);
-                EventByUserResponse eventByUserResponse = EventByUserResponse.builder()
-                    .booking(booking)
-                    .event(event.get())
-                    .build();
-                eventByUserResponses.add(eventByUserResponse);
-            } else {
+            String eventId = booking.resolveEventId();
+            if (eventId == null) {
                 throw new MyException("No tickets found for booking with ID: " + booking.getId());
             }
+            eventIds.add(eventId);
+        }
+
+        Map<String, EventSummary> events = new HashMap<>();
+        if (!eventIds.isEmpty()) {
+            for (EventSummary event : eventRepo.findSummariesByIdIn(eventIds)) {
+                events.put(event.getId(), event);
+            }
+        }
+
+        List<EventByUserResponse> eventByUserResponses = new ArrayList<>();
+        for (BookingDetails booking : bookings) {
+            eventByUserResponses.add(EventByUserResponse.builder()
+                    .booking(booking)
+                    .event(events.get(booking.resolveEventId()))
+                    .build());
         }
-        
         return eventByUserResponses;
     }
 
-    public List<Events> getOrganizerEventsList(String organizerId) {
+    public List<EventSummary> getOrganizerEventsList(String organizerId) {
         if (organizerId == null || organizerId.isEmpty()) {
             throw new MyException("Organizer ID must not be empty");
         }
-        return eventRepo.findByOrganizerId(organizerId);
+        return eventRepo.findSummariesByOrganizerId(organizerId);
     }
 
     public Events updateEvent(String eventId, EventUpdateRequest updateRequest, String userId) {
@@ -113,6 +210,9 @@ public class EventServices {
         if (!event.getOrganizerId().equals(userId)) {
             throw new MyException("User not authorized to update this event");
         }
+        Events previousAddress = Events.builder()
+                .address(event.getAddress()).city(event.getCity()).state(event.getState()).zipCode(event.getZipCode())
+                .build();
         // Only update allowed fields
         if (updateRequest.getDesc() != null) event.setDesc(updateRequest.getDesc());
         if (updateRequest.getTicketPrice() != null) event.setTicketPrice(updateRequest.getTicketPrice());
@@ -122,42 +222,18 @@ public class EventServices {
         if (updateRequest.getZipCode() != null) event.setZipCode(updateRequest.getZipCode());
         if (updateRequest.getAddress() != null) event.setAddress(updateRequest.getAddress());
         if (updateRequest.getEventInstruction() != null) event.setEventInstruction(updateRequest.getEventInstruction());
+        // Inventory fields are left out of this write so concurrent bookings are not overwritten
+        eventRepo.updateEventDetails(event);
         // Handle eventCapacity and available_tickets logic
         if (updateRequest.getEventCapacity() != null) {
-            int oldCapacity = event.getEventCapacity();
-            int oldAvailable = event.getAvailable_tickets();
-            int diff = updateRequest.getEventCapacity() - oldCapacity;
-            int newAvailable = oldAvailable + diff;
-            if (newAvailable < 0) newAvailable = 0;
-            event.setEventCapacity(updateRequest.getEventCapacity());
-            event.setAvailable_tickets(newAvailable);
-        }
-        // Google Maps Geocoding
-        updateEventGeocoding(event);
-        return eventRepo.save(event);
-    }
-
-    private void updateEventGeocoding(Events event) {
-        try {
-            String address = String.join(", ", event.getAddress(), event.getCity(), event.getState(), event.getZipCode());
-            String url = "https://maps.googleapis.com/maps/api/geocode/json?address=" + address.replace(" ", "+") + "&key=" + googleMapsApiKey;
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-            JSONObject json = new JSONObject(response.getBody());
-            if (json.has("results") && json.getJSONArray("results").length() > 0) {
-                JSONObject locationJson = json.getJSONArray("results").getJSONObject(0).getJSONObject("geometry").getJSONObject("location");
-                double lat = locationJson.getDouble("lat");
-                double lng = locationJson.getDouble("lng");
-                String gmapUrl = "https://www.google.com/maps/search/?api=1&query=" + address.replace(" ", "+");
-                if (event.getLocation() == null) {
-                    event.setLocation(new com.eventure.events.dto.Location());
-                }
-                event.getLocation().setLatitude(lat);
-                event.getLocation().setLongitude(lng);
-                event.getLocation().setGmapUrl(gmapUrl);
-            }
-        } catch (Exception e) {
-            // Optionally log or handle geocoding errors
+            ticketInventory.adjustCapacity(eventId, updateRequest.getEventCapacity() - event.getEventCapacity());
+        }
+        eventPublisher.publishEvent(new EventChangedEvent(this, eventId, EventChangedEvent.Kind.UPDATED));
+        // Only a changed address needs new coordinates
+        if (!GeocodingService.sameAddress(previousAddress, event)) {
+            geocodingService.locate(event);
         }
+        return eventRepo.findById(eventId).orElseThrow(() -> new MyException("Event not found"));
     }
 
 }
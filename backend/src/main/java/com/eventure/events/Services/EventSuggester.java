@@ -0,0 +1,219 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.Suggestion;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Typeahead over event names, cities and categories. Kept up to date by
+ * EventSearchIndex, which calls add/remove under its write lock and publish
+ * after each batch. Lookups binary search a sorted key array swapped in by
+ * publish, so they take no lock and never touch Mongo. Names are also found by
+ * the start of any later word ("night" finds "Jazz Night"). An event re-read
+ * unchanged, as on every inventory change, nets out to nothing and publish does
+ * no work; count-only changes reuse the sorted keys.
+ */
+@Service
+public class EventSuggester {
+
+    private static final class Entry {
+        private final String id;
+        private final String text;
+        private final String type;
+        private int count;
+        private int publishedCount;
+
+        private Entry(String id, String text, String type) {
+            this.id = id;
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    private static final class Snapshot {
+        private final String[] keys;
+        private final Entry[] entries;
+        private final int[] counts;
+
+        private Snapshot(String[] keys, Entry[] entries, int[] counts) {
+            this.keys = keys;
+            this.entries = entries;
+            this.counts = counts;
+        }
+    }
+
+    // Written by the search index thread only
+    // Entries whose count dropped to zero stay until publish, so a remove and add of the same event nets out
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Set<Entry> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean keysChanged;
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new Entry[0], new int[0]);
+
+    void clear() {
+        entries.clear();
+        touched.clear();
+        keysChanged = true;
+    }
+
+    void add(EventSummary event) {
+        adjust(event.getEventName(), Suggestion.EVENT, 1);
+        adjust(event.getCity(), Suggestion.CITY, 1);
+        adjust(event.getEventCategory(), Suggestion.CATEGORY, 1);
+    }
+
+    void remove(EventSummary event) {
+        adjust(event.getEventName(), Suggestion.EVENT, -1);
+        adjust(event.getCity(), Suggestion.CITY, -1);
+        adjust(event.getEventCategory(), Suggestion.CATEGORY, -1);
+    }
+
+    // Rebuilds the sorted arrays if an entry was added, dropped or renamed since the
+    // last call, and only the counts if nothing but counts changed
+    void publish() {
+        boolean countsChanged = false;
+        for (Entry entry : touched) {
+            if (entry.count <= 0) {
+                entries.remove(entry.id, entry);
+                keysChanged = true;
+            } else if (entry.count != entry.publishedCount) {
+                countsChanged = true;
+            }
+            entry.publishedCount = entry.count;
+        }
+        touched.clear();
+        if (!keysChanged) {
+            if (countsChanged) {
+                Snapshot current = snapshot;
+                int[] counts = new int[current.entries.length];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = current.entries[i].count;
+                }
+                snapshot = new Snapshot(current.keys, current.entries, counts);
+            }
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        List<Entry> owners = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            for (String key : keysFor(entry)) {
+                keys.add(key);
+                owners.add(entry);
+            }
+        }
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keys::get));
+
+        String[] sortedKeys = new String[order.length];
+        Entry[] sortedEntries = new Entry[order.length];
+        int[] counts = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            sortedEntries[i] = owners.get(order[i]);
+            counts[i] = sortedEntries[i].count;
+        }
+        snapshot = new Snapshot(sortedKeys, sortedEntries, counts);
+        keysChanged = false;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit < 1) {
+            return Collections.emptyList();
+        }
+        Snapshot current = snapshot;
+        int from = lowerBound(current.keys, normalized);
+        int to = lowerBound(current.keys, normalized + Character.MAX_VALUE);
+
+        // Highest counts in the prefix range, an entry can sit under several keys
+        Comparator<Integer> byCount = Comparator.<Integer>comparingInt(i -> current.counts[i])
+                .thenComparing(i -> current.entries[i].text, Comparator.reverseOrder());
+        PriorityQueue<Integer> best = new PriorityQueue<>(byCount);
+        Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = from; i < to; i++) {
+            if (!seen.add(current.entries[i])) {
+                continue;
+            }
+            best.add(i);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            int i = best.poll();
+            suggestions.add(new Suggestion(current.entries[i].text, current.entries[i].type, current.counts[i]));
+        }
+        Collections.reverse(suggestions);
+        return suggestions;
+    }
+
+    private void adjust(String text, String type, int delta) {
+        if (text == null || normalize(text).isEmpty()) {
+            return;
+        }
+        String id = type + ":" + normalize(text);
+        Entry entry = entries.get(id);
+        if (entry == null && delta < 0) {
+            return;
+        }
+        if (entry == null || (delta > 0 && entry.count <= 0 && !entry.text.equals(text.trim()))) {
+            // New, or back with different spelling after all its events were removed
+            Entry created = new Entry(id, text.trim(), type);
+            if (entry != null) {
+                created.count = entry.count;
+                touched.remove(entry);
+            }
+            entry = created;
+            entries.put(id, entry);
+            keysChanged = true;
+        }
+        entry.count += delta;
+        touched.add(entry);
+    }
+
+    private static List<String> keysFor(Entry entry) {
+        String text = normalize(entry.text);
+        List<String> keys = new ArrayList<>();
+        keys.add(text);
+        if (Suggestion.EVENT.equals(entry.type)) {
+            for (int i = text.indexOf(' '); i >= 0; i = text.indexOf(' ', i + 1)) {
+                keys.add(text.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,18 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.Location;
+
+import java.util.Optional;
+
+/**
+ * Turns an address into coordinates. Google is used by default, the stub
+ * provider can be switched on with geocoding.provider=stub.
+ */
+public interface GeocodingProvider {
+
+    /**
+     * @return latitude and longitude of the address, empty if it could not be found
+     * @throws RuntimeException when the lookup itself failed (timeout, quota, ...)
+     */
+    Optional<Location> geocode(String address);
+}
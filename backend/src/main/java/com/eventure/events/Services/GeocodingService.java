@@ -0,0 +1,224 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.Location;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.GeocodeCacheEntry;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.GeocodeCacheRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills in event coordinates in the background. Event writes only queue a
+ * lookup and return; a worker resolves the address through the GeocodeCache
+ * collection, or the provider on a cache miss, and writes the location only if
+ * the event still has the address that was looked up. Lookups that fail or do
+ * not fit in the queue are retried by a periodic sweep with exponential backoff,
+ * against the event's address at that time.
+ */
+@Service
+public class GeocodingService {
+    private static final Logger logger = LoggerFactory.getLogger(GeocodingService.class);
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 60 * 60_000;
+
+    private static final class Retry {
+        private final int failures;
+        private final long dueAt;
+
+        private Retry(int failures, long dueAt) {
+            this.failures = failures;
+            this.dueAt = dueAt;
+        }
+    }
+
+    private final GeocodingProvider provider;
+    private final GeocodeCacheRepo geocodeCacheRepo;
+    private final EventRepo eventRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor workers;
+    private final long retryBackoffMillis;
+    private final int maxAttempts;
+    private final long notFoundTtlMillis;
+    // Event id -> lookups to try again, the address is re-read when one is due
+    private final Map<String, Retry> retries = new ConcurrentHashMap<>();
+
+    private final Timer providerLatency;
+    private final Counter cacheHits;
+    private final Counter resolved;
+    private final Counter notFound;
+    private final Counter errors;
+    private final Counter dropped;
+
+    @Autowired
+    public GeocodingService(GeocodingProvider provider, GeocodeCacheRepo geocodeCacheRepo, EventRepo eventRepo,
+                            ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                            @Value("${geocoding.workers:2}") int workerCount,
+                            @Value("${geocoding.queue-capacity:500}") int queueCapacity,
+                            @Value("${geocoding.retry-backoff-ms:30000}") long retryBackoffMillis,
+                            @Value("${geocoding.max-attempts:8}") int maxAttempts,
+                            @Value("${geocoding.not-found-ttl-ms:604800000}") long notFoundTtlMillis) {
+        this.provider = provider;
+        this.geocodeCacheRepo = geocodeCacheRepo;
+        this.eventRepo = eventRepo;
+        this.eventPublisher = eventPublisher;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxAttempts = maxAttempts;
+        this.notFoundTtlMillis = notFoundTtlMillis;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "geocoding");
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        this.providerLatency = Timer.builder("geocoding.provider.latency")
+                .description("Time spent in the geocoding provider on cache misses")
+                .register(meterRegistry);
+        this.cacheHits = meterRegistry.counter("geocoding.lookups", "result", "cache_hit");
+        this.resolved = meterRegistry.counter("geocoding.lookups", "result", "resolved");
+        this.notFound = meterRegistry.counter("geocoding.lookups", "result", "not_found");
+        this.errors = meterRegistry.counter("geocoding.lookups", "result", "error");
+        this.dropped = meterRegistry.counter("geocoding.lookups", "result", "dropped");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public static String addressOf(Events event) {
+        return String.join(", ", event.getAddress(), event.getCity(), event.getState(), event.getZipCode());
+    }
+
+    // Cache key: case, spacing and punctuation differences map to the same entry
+    public static String normalize(String address) {
+        return address.toLowerCase(Locale.ROOT)
+                .replaceAll("[.#]", "")
+                .replaceAll("\\s*,\\s*", ", ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    public static boolean sameAddress(Events a, Events b) {
+        return normalize(addressOf(a)).equals(normalize(addressOf(b)));
+    }
+
+    // Queues a lookup for the event's current address
+    public void locate(Events event) {
+        // A new lookup replaces any retry still pending for the old address
+        retries.remove(event.getId());
+        submit(snapshot(event.getId(), event.getAddress(), event.getCity(), event.getState(), event.getZipCode()), 0);
+    }
+
+    // Re-queues failed lookups that are due, with the address the event has now
+    @Scheduled(fixedDelayString = "${geocoding.retry-sweep-ms:30000}")
+    public void retryFailed() {
+        long now = System.currentTimeMillis();
+        retries.forEach((eventId, retry) -> {
+            if (retry.dueAt > now || !retries.remove(eventId, retry)) {
+                return;
+            }
+            try {
+                eventRepo.findSummaryById(eventId).ifPresent(event -> submit(
+                        snapshot(event.getId(), event.getAddress(), event.getCity(), event.getState(), event.getZipCode()),
+                        retry.failures));
+            } catch (RuntimeException e) {
+                retries.putIfAbsent(eventId, retry);
+                logger.warn("Could not reload event {} for a geocoding retry: {}", eventId, e.getMessage());
+            }
+        });
+    }
+
+    // Snapshot of the address fields, the update is guarded on them
+    private static Events snapshot(String id, String address, String city, String state, String zipCode) {
+        return Events.builder().id(id).address(address).city(city).state(state).zipCode(zipCode).build();
+    }
+
+    private void submit(Events address, int failures) {
+        try {
+            workers.execute(() -> resolve(address, failures));
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            logger.warn("Geocoding queue full, event {} is retried later", address.getId());
+            retryLater(address.getId(), Math.max(failures, 1));
+        }
+    }
+
+    void resolve(Events address) {
+        resolve(address, 0);
+    }
+
+    private void resolve(Events address, int failures) {
+        try {
+            String text = addressOf(address);
+            Optional<Location> location = lookup(normalize(text), text);
+            if (location.isEmpty()) {
+                return;
+            }
+            location.get().setGmapUrl("https://www.google.com/maps/search/?api=1&query=" + text.replace(" ", "+"));
+            if (eventRepo.updateLocation(address, location.get())) {
+                eventPublisher.publishEvent(new EventChangedEvent(this, address.getId(), EventChangedEvent.Kind.UPDATED));
+            }
+        } catch (RuntimeException e) {
+            errors.increment();
+            logger.warn("Geocoding failed for event {}: {}", address.getId(), e.getMessage());
+            retryLater(address.getId(), failures + 1);
+        }
+    }
+
+    private void retryLater(String eventId, int failures) {
+        if (failures > maxAttempts) {
+            logger.warn("Geocoding gave up on event {} after {} attempts", eventId, failures);
+            return;
+        }
+        long backoff = Math.min(retryBackoffMillis << Math.min(failures - 1, 20), MAX_RETRY_BACKOFF_MILLIS);
+        retries.put(eventId, new Retry(failures, System.currentTimeMillis() + backoff));
+    }
+
+    private Optional<Location> lookup(String key, String address) {
+        Optional<GeocodeCacheEntry> cached = geocodeCacheRepo.findById(key);
+        if (cached.isPresent()) {
+            cacheHits.increment();
+            return cached.filter(GeocodeCacheEntry::isFound).map(entry -> {
+                Location location = new Location();
+                location.setLatitude(entry.getLatitude());
+                location.setLongitude(entry.getLongitude());
+                return location;
+            });
+        }
+
+        Optional<Location> location = providerLatency.record(() -> provider.geocode(address));
+        // Misses are cached too, until geocoding.not-found-ttl-ms in case the provider learns the address
+        Date now = new Date();
+        GeocodeCacheEntry entry = GeocodeCacheEntry.builder()
+                .id(key)
+                .found(location.isPresent())
+                .latitude(location.map(Location::getLatitude).orElse(0.0))
+                .longitude(location.map(Location::getLongitude).orElse(0.0))
+                .resolvedAt(now)
+                .expiresAt(location.isPresent() ? null : new Date(now.getTime() + notFoundTtlMillis))
+                .build();
+        geocodeCacheRepo.save(entry);
+        (location.isPresent() ? resolved : notFound).increment();
+        return location;
+    }
+}
@@ -0,0 +1,58 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.Location;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+
+@Service
+@ConditionalOnProperty(name = "geocoding.provider", havingValue = "google", matchIfMissing = true)
+public class GoogleGeocodingProvider implements GeocodingProvider {
+
+    private final RestTemplate restTemplate;
+    private final String apiKey;
+
+    @Autowired
+    public GoogleGeocodingProvider(RestTemplateBuilder restTemplateBuilder,
+                                   @Value("${google.maps.api.key}") String apiKey,
+                                   @Value("${geocoding.timeout-ms:3000}") long timeoutMillis) {
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(timeoutMillis))
+                .setReadTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public Optional<Location> geocode(String address) {
+        // Encoded once here and passed as a URI, a String would be encoded again by the RestTemplate
+        URI url = UriComponentsBuilder.fromHttpUrl("https://maps.googleapis.com/maps/api/geocode/json")
+                .queryParam("address", "{address}")
+                .queryParam("key", "{key}")
+                .encode()
+                .buildAndExpand(address, apiKey)
+                .toUri();
+        JSONObject json = new JSONObject(restTemplate.getForObject(url, String.class));
+        String status = json.optString("status");
+        if ("ZERO_RESULTS".equals(status)) {
+            return Optional.empty();
+        }
+        if (!"OK".equals(status)) {
+            throw new IllegalStateException("Geocoding failed with status " + status + ": " + json.optString("error_message"));
+        }
+        JSONObject locationJson = json.getJSONArray("results").getJSONObject(0).getJSONObject("geometry").getJSONObject("location");
+        Location location = new Location();
+        location.setLatitude(locationJson.getDouble("lat"));
+        location.setLongitude(locationJson.getDouble("lng"));
+        return Optional.of(location);
+    }
+}
@@ -0,0 +1,234 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.IdempotencyKeyReusedException;
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.IdempotencyRecord;
+import com.eventure.events.repository.IdempotencyRecordRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key. The first call claims the key
+ * in IdempotencyKeys, runs and stores its response; replays get the stored
+ * response back without running anything. Duplicates that arrive while the first
+ * call is still running on this instance wait for its result, duplicates on
+ * another instance poll the stored record.
+ *
+ * The key is bound to a hash of the request body, reusing it for a different
+ * body is rejected with 422. A claim that never completed is not run again, since
+ * its action may already have committed.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final long WAIT_MILLIS = 30_000;
+    private static final long STALE_CLAIM_MILLIS = 120_000;
+    private static final int COMPLETE_ATTEMPTS = 5;
+
+    private final IdempotencyRecordRepo idempotencyRecordRepo;
+    private final ObjectMapper objectMapper;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    // id -> completed record
+    private final Map<String, IdempotencyRecord> recent;
+
+    private static final class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepo idempotencyRecordRepo, ObjectMapper objectMapper,
+                              @Value("${idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyRecordRepo = idempotencyRecordRepo;
+        this.objectMapper = objectMapper;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public <T> T execute(String scope, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+
+        IdempotencyRecord cached = recent.get(id);
+        if (cached != null) {
+            checkSameRequest(cached.getRequestHash(), requestHash);
+            return read(cached.getResponseJson(), type);
+        }
+
+        InFlight mine = new InFlight(requestHash);
+        InFlight running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash, requestHash);
+            return read(await(running.result), type);
+        }
+
+        try {
+            IdempotencyRecord stored = claimOrLoad(id, requestHash);
+            if (stored != null) {
+                recent.put(id, stored);
+                mine.result.complete(stored.getResponseJson());
+                return read(stored.getResponseJson(), type);
+            }
+
+            T result;
+            try {
+                result = action.get();
+            } catch (RuntimeException e) {
+                // Let a retry with the same key run again
+                idempotencyRecordRepo.deleteById(id);
+                throw e;
+            }
+            IdempotencyRecord completed = new IdempotencyRecord(id, IdempotencyRecord.COMPLETED, requestHash, write(result), new Date());
+            // The action has committed, from here on the key must never be released for a re-run
+            complete(completed);
+            recent.put(id, completed);
+            mine.result.complete(completed.getResponseJson());
+            return result;
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    // Retries the COMPLETED write. If it still fails the claim stays IN_PROGRESS, which
+    // makes retries on other instances fail instead of running the action again.
+    private void complete(IdempotencyRecord completed) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                idempotencyRecordRepo.save(completed);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == COMPLETE_ATTEMPTS) {
+                    logger.error("Could not store response for idempotency key {}, leaving it claimed: {}",
+                            completed.getId(), e.getMessage());
+                    return;
+                }
+                try {
+                    Thread.sleep(50L << attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns the completed record of an earlier request, or null once this call owns the key
+    private IdempotencyRecord claimOrLoad(String id, String requestHash) {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (true) {
+            try {
+                idempotencyRecordRepo.insert(new IdempotencyRecord(id, IdempotencyRecord.IN_PROGRESS, requestHash, null, new Date()));
+                return null;
+            } catch (DuplicateKeyException e) {
+                IdempotencyRecord existing = idempotencyRecordRepo.findById(id).orElse(null);
+                if (existing == null) {
+                    continue;
+                }
+                checkSameRequest(existing.getRequestHash(), requestHash);
+                if (IdempotencyRecord.COMPLETED.equals(existing.getStatus())) {
+                    return existing;
+                }
+                if (System.currentTimeMillis() - existing.getCreatedAt().getTime() > STALE_CLAIM_MILLIS) {
+                    // The first request died or could not store its response, it may have committed
+                    logger.warn("Idempotency claim {} never completed, not running it again", id);
+                    throw new MyException("An earlier request with this Idempotency-Key did not finish. "
+                            + "Check your bookings before retrying with a new key.");
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw new MyException("A request with this Idempotency-Key is still being processed.");
+                }
+                sleep();
+            }
+        }
+    }
+
+    private String await(CompletableFuture<String> running) {
+        try {
+            return running.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new MyException("Original request failed: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new MyException("A request with this Idempotency-Key is still being processed.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MyException("Interrupted while waiting for the original request.");
+        }
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (storedHash != null && !storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("This Idempotency-Key was already used for a different request.");
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request could not be hashed for idempotency", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored for idempotent replay", e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MyException("Interrupted while waiting for the original request.");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.InventoryDelta;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.TicketHold;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.TicketHoldRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * In-memory inventory for hot on-sales. Availability is answered from
+ * {@link StripedTicketCounter}s and the deltas are written back to EventDetails
+ * on a fixed schedule. The ledger owns the counters of the events it has loaded,
+ * so it must only be enabled on a single backend instance.
+ *
+ * On first use after a start the counter of an event is rebuilt from the
+ * CONFIRMED bookings and open holds, which covers deltas lost in a crash
+ * before they were flushed. Release paths load the counter before they cancel a
+ * booking or delete a hold, so a release is either already part of the rebuilt
+ * count or given back afterwards, never both.
+ */
+@Service
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class InventoryLedgerService implements TicketInventory {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedgerService.class);
+
+    private final EventRepo eventRepo;
+    private final BookingRepo bookingRepo;
+    private final TicketHoldRepo ticketHoldRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int stripeCount;
+    private final Map<String, StripedTicketCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<StripedTicketCounter>> loading = new ConcurrentHashMap<>();
+    private final Map<String, InventoryDelta> unconfirmed = new ConcurrentHashMap<>();
+    // Seeded from the clock so sequences keep growing across restarts
+    private final AtomicLong nextSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    @Autowired
+    public InventoryLedgerService(EventRepo eventRepo, BookingRepo bookingRepo, TicketHoldRepo ticketHoldRepo,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${inventory.ledger.stripes:0}") int stripes) {
+        this.eventRepo = eventRepo;
+        this.bookingRepo = bookingRepo;
+        this.ticketHoldRepo = ticketHoldRepo;
+        this.eventPublisher = eventPublisher;
+        this.stripeCount = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public boolean reserve(String eventId, int count) {
+        StripedTicketCounter counter = counter(eventId);
+        return counter != null && counter.tryTake(count);
+    }
+
+    @Override
+    public void release(String eventId, int count) {
+        StripedTicketCounter counter = counter(eventId);
+        if (counter == null) {
+            logger.warn("Could not release {} tickets, event {} not found", count, eventId);
+            return;
+        }
+        counter.give(count);
+    }
+
+    @Override
+    public boolean releaseAfter(String eventId, int count, BooleanSupplier freed) {
+        // Recovery has to finish before the write, or it would count the freed tickets as well
+        StripedTicketCounter counter = counter(eventId);
+        if (!freed.getAsBoolean()) {
+            return false;
+        }
+        if (counter == null) {
+            logger.warn("Could not release {} tickets, event {} not found", count, eventId);
+        } else {
+            counter.give(count);
+        }
+        return true;
+    }
+
+    @Override
+    public void adjustCapacity(String eventId, int delta) {
+        StripedTicketCounter counter = counter(eventId);
+        if (counter != null) {
+            counter.adjustCapacity(delta);
+        }
+    }
+
+    // A failed bulk write may still have applied some of its updates, so a failed delta is
+    // resent unchanged with its sequence and the event document skips it if it already landed
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:500}")
+    public synchronized void flush() {
+        List<InventoryDelta> batch = new ArrayList<>();
+        for (Map.Entry<String, StripedTicketCounter> entry : counters.entrySet()) {
+            InventoryDelta retry = unconfirmed.get(entry.getKey());
+            if (retry != null) {
+                batch.add(retry);
+            } else if (entry.getValue().hasPendingDeltas()) {
+                int[] d = entry.getValue().drainDeltas();
+                InventoryDelta delta = new InventoryDelta(entry.getKey(), nextSequence.incrementAndGet(), d[0], d[1], d[2]);
+                unconfirmed.put(entry.getKey(), delta);
+                batch.add(delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            eventRepo.applyInventoryDeltas(batch);
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush inventory deltas for {} events, will retry: {}", batch.size(), e.getMessage());
+            return;
+        }
+        for (InventoryDelta delta : batch) {
+            unconfirmed.remove(delta.getEventId());
+            eventPublisher.publishEvent(new EventChangedEvent(this, delta.getEventId(), EventChangedEvent.Kind.INVENTORY));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Recovery reads and writes Mongo, so it runs outside the map. Concurrent first
+    // users of an event wait on the one recovery instead of holding a map bin lock.
+    private StripedTicketCounter counter(String eventId) {
+        StripedTicketCounter counter = counters.get(eventId);
+        if (counter != null) {
+            return counter;
+        }
+        CompletableFuture<StripedTicketCounter> mine = new CompletableFuture<>();
+        CompletableFuture<StripedTicketCounter> running = loading.putIfAbsent(eventId, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            // Another thread may have finished loading between the get and the putIfAbsent
+            counter = counters.get(eventId);
+            if (counter == null) {
+                counter = recover(eventId);
+                if (counter != null) {
+                    counters.putIfAbsent(eventId, counter);
+                    counter = counters.get(eventId);
+                }
+            }
+            mine.complete(counter);
+            return counter;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(eventId, mine);
+        }
+    }
+
+    private StripedTicketCounter recover(String eventId) {
+        Events event = eventRepo.findById(eventId).orElse(null);
+        if (event == null) {
+            return null;
+        }
+        // Open checkout holds took tickets as well, they are released through this ledger later
+        int sold = bookingRepo.sumConfirmedTickets(eventId)
+                + ticketHoldRepo.findByEventId(eventId).stream().mapToInt(TicketHold::getTicketCount).sum();
+        int available = Math.max(0, event.getEventCapacity() - sold);
+        if (available != event.getAvailable_tickets() || sold != event.getEventAttendees()) {
+            logger.info("Rebuilt inventory for event {}: available {} -> {}, attendees {} -> {}",
+                    eventId, event.getAvailable_tickets(), available, event.getEventAttendees(), sold);
+            eventRepo.resetInventory(eventId, available, sold);
+        }
+        return new StripedTicketCounter(available, stripeCount);
+    }
+}
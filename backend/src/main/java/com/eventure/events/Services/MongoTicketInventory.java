@@ -0,0 +1,63 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.repository.EventRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.function.BooleanSupplier;
+
+@Service
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "false", matchIfMissing = true)
+public class MongoTicketInventory implements TicketInventory {
+    private static final Logger logger = LoggerFactory.getLogger(MongoTicketInventory.class);
+
+    private final EventRepo eventRepo;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public MongoTicketInventory(EventRepo eventRepo, ApplicationEventPublisher eventPublisher) {
+        this.eventRepo = eventRepo;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public boolean reserve(String eventId, int count) {
+        boolean reserved = eventRepo.reserveTickets(eventId, count);
+        if (reserved) {
+            changed(eventId);
+        }
+        return reserved;
+    }
+
+    @Override
+    public void release(String eventId, int count) {
+        if (eventRepo.releaseTickets(eventId, count)) {
+            changed(eventId);
+        } else {
+            logger.warn("Could not release {} tickets for event {}", count, eventId);
+        }
+    }
+
+    @Override
+    public boolean releaseAfter(String eventId, int count, BooleanSupplier freed) {
+        if (!freed.getAsBoolean()) {
+            return false;
+        }
+        release(eventId, count);
+        return true;
+    }
+
+    @Override
+    public void adjustCapacity(String eventId, int delta) {
+        eventRepo.adjustCapacity(eventId, delta);
+        changed(eventId);
+    }
+
+    private void changed(String eventId) {
+        eventPublisher.publishEvent(new EventChangedEvent(this, eventId, EventChangedEvent.Kind.INVENTORY));
+    }
+}
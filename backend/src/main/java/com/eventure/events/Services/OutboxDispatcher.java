@@ -0,0 +1,194 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.OutboxMessage;
+import com.eventure.events.model.BookingDetails;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.Users;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.UserRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the booking outbox. Due messages are claimed from BookingDetails with a
+ * lease and handed to a bounded worker pool, failures are retried with
+ * exponential backoff until outbox.max-attempts is reached. A message whose
+ * worker died is picked up again once its lease runs out.
+ */
+@Service
+public class OutboxDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final long LEASE_MILLIS = 60_000;
+    private static final long MAX_BACKOFF_MILLIS = 15 * 60_000;
+
+    private final BookingRepo bookingRepo;
+    private final UserRepo userRepo;
+    private final EventRepo eventRepo;
+    private final EmailService emailService;
+    private final ThreadPoolExecutor workers;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Timer dispatchLag;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    @Autowired
+    public OutboxDispatcher(BookingRepo bookingRepo, UserRepo userRepo, EventRepo eventRepo, EmailService emailService,
+                            MeterRegistry meterRegistry,
+                            @Value("${outbox.workers:4}") int workerCount,
+                            @Value("${outbox.queue-capacity:200}") int queueCapacity,
+                            @Value("${outbox.max-attempts:6}") int maxAttempts,
+                            @Value("${outbox.backoff-ms:5000}") long backoffMillis) {
+        this.bookingRepo = bookingRepo;
+        this.userRepo = userRepo;
+        this.eventRepo = eventRepo;
+        this.emailService = emailService;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "outbox-" + threadId.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        Gauge.builder("outbox.queue.depth", workers, w -> w.getQueue().size() + w.getActiveCount())
+                .description("Outbox messages claimed and waiting for or running on a worker")
+                .register(meterRegistry);
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get)
+                .description("Bookings with outbox messages not sent yet")
+                .register(meterRegistry);
+        this.dispatchLag = Timer.builder("outbox.dispatch.lag")
+                .description("Time from the booking write to the message being sent")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("outbox.messages", "result", "sent");
+        this.retried = meterRegistry.counter("outbox.messages", "result", "retried");
+        this.failed = meterRegistry.counter("outbox.messages", "result", "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            int free = workers.getQueue().remainingCapacity();
+            for (int i = 0; i < free; i++) {
+                String claimToken = UUID.randomUUID().toString();
+                Date now = new Date();
+                BookingDetails booking = bookingRepo.claimOutboxMessage(claimToken, now, new Date(now.getTime() + LEASE_MILLIS));
+                if (booking == null) {
+                    break;
+                }
+                OutboxMessage message = booking.getOutbox().stream()
+                        .filter(m -> claimToken.equals(m.getClaimToken()))
+                        .findFirst()
+                        .orElse(null);
+                if (message == null) {
+                    continue;
+                }
+                try {
+                    workers.execute(() -> dispatch(booking, message));
+                } catch (RejectedExecutionException e) {
+                    // Lease runs out and the message is claimed again on a later poll
+                    break;
+                }
+            }
+            backlog.set(bookingRepo.countPendingOutboxMessages());
+        } catch (RuntimeException e) {
+            logger.error("Outbox poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void dispatch(BookingDetails booking, OutboxMessage message) {
+        int attempts = message.getAttempts() + 1;
+        try {
+            send(booking, message);
+            bookingRepo.completeOutboxMessage(booking.getId(), message.getId());
+            dispatchLag.record(System.currentTimeMillis() - message.getCreatedAt().getTime(), TimeUnit.MILLISECONDS);
+            sent.increment();
+        } catch (Exception e) {
+            if (attempts >= maxAttempts) {
+                logger.error("Giving up on {} for booking {} after {} attempts: {}",
+                        message.getType(), booking.getId(), attempts, e.getMessage());
+                bookingRepo.failOutboxMessage(booking.getId(), message.getId(), attempts, e.getMessage());
+                failed.increment();
+            } else {
+                long delay = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << (attempts - 1));
+                logger.warn("Sending {} for booking {} failed (attempt {}), retrying in {} ms: {}",
+                        message.getType(), booking.getId(), attempts, delay, e.getMessage());
+                bookingRepo.retryOutboxMessage(booking.getId(), message.getId(), attempts,
+                        new Date(System.currentTimeMillis() + delay), e.getMessage());
+                retried.increment();
+            }
+        }
+    }
+
+    private void send(BookingDetails booking, OutboxMessage message) throws Exception {
+        Users user = userRepo.findById(booking.getUserId())
+                .orElseThrow(() -> new IllegalStateException("User not found with id: " + booking.getUserId()));
+        String eventId = booking.resolveEventId();
+        Events event = eventRepo.findById(eventId)
+                .orElseThrow(() -> new IllegalStateException("Event not found with id: " + eventId));
+
+        Map<String, String> emailVariables = new HashMap<>();
+        emailVariables.put("userName", user.getFirstName() + " " + user.getLastName());
+        emailVariables.put("eventName", event.getEventName());
+        emailVariables.put("eventDate", event.getEventDateTime().toString());
+        emailVariables.put("eventAddress", event.getAddress() + ", " + event.getCity() + ", " + event.getState() + " " + event.getZipCode());
+
+        if (OutboxMessage.BOOKING_CONFIRMATION.equals(message.getType())) {
+            emailVariables.put("eventInstruction", event.getEventInstruction() != null ? event.getEventInstruction() : "No specific instructions provided.");
+            String gmapUrl = String.format("https://www.google.com/maps/search/?api=1&query=%s,%s,%s,%s",
+                    event.getAddress(), event.getCity(), event.getState(), event.getZipCode());
+            emailVariables.put("gmapUrl", gmapUrl);
+
+            emailService.sendHtmlEmail(
+                user.getEmail(),
+                "Booking Confirmation - " + event.getEventName(),
+                "Emailtemplate/booking-confirmation.html",
+                emailVariables,
+                booking.getTickets()
+            );
+        } else if (OutboxMessage.BOOKING_CANCELLATION.equals(message.getType())) {
+            emailService.sendHtmlEmail(
+                user.getEmail(),
+                "Booking Cancelled - " + event.getEventName(),
+                "Emailtemplate/booking-cancellation.html",
+                emailVariables,
+                null
+            );
+        } else {
+            throw new IllegalStateException("Unknown outbox message type: " + message.getType());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -5,35 +5,103 @@ import com.eventure.events.model.BookingDetails;
 import com.eventure.events.model.Events;
 import com.eventure.events.model.Users;
 import com.eventure.events.dto.Ticket;
+import com.google.zxing.common.BitMatrix;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccess;
+import org.apache.pdfbox.io.RandomAccessInputStream;
+import org.apache.pdfbox.io.RandomAccessOutputStream;
+import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDFormContentStream;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 
 @Service
 public class PdfTicketService {
 
     private static final Logger logger = LoggerFactory.getLogger(PdfTicketService.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a");
+    private static final float PAGE_WIDTH = PDRectangle.A4.getWidth();
+    private static final float PAGE_HEIGHT = PDRectangle.A4.getHeight();
+    private static final float MARGIN = 50;
+    private static final float LOGO_WIDTH = 100;
+
     private final QrCodeService qrCodeService;
+    // Read from the classpath once, null if the logo is missing
+    private final byte[] logoBytes;
+    // Streams of a document stay on the heap up to this size, the rest goes to a scratch file
+    private final MemoryUsageSetting memoryUsage;
 
     @Autowired
-    public PdfTicketService(QrCodeService qrCodeService) {
+    public PdfTicketService(QrCodeService qrCodeService,
+                            @Value("${pdf.memory.max-main-bytes:1048576}") long maxMainMemoryBytes,
+                            @Value("${pdf.memory.temp-dir:}") String tempDir) {
         this.qrCodeService = qrCodeService;
+        this.logoBytes = loadLogo();
+        MemoryUsageSetting memoryUsage = MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+        if (!tempDir.isEmpty()) {
+            memoryUsage.setTempDir(new File(tempDir));
+        }
+        this.memoryUsage = memoryUsage;
+    }
+
+    private static byte[] loadLogo() {
+        try {
+            ClassPathResource logoResource = new ClassPathResource("EventureLogo.jpeg"); // Make sure this exists!
+            if (!logoResource.exists()) {
+                logger.warn("Logo EventureLogo.jpeg not found in classpath.");
+                return null;
+            }
+            try (InputStream logoInputStream = logoResource.getInputStream()) {
+                return logoInputStream.readAllBytes();
+            }
+        } catch (IOException e) {
+            logger.error("Error loading logo for PDF: {}", e.getMessage(), e);
+            return null;
+        }
     }
 
     public byte[] generateTicketPdf(BookingDetails booking, Events event, Users user) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        writeTicketPdf(booking, event, user, byteArrayOutputStream);
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    // Renders into a scratch buffer, on the heap up to the memory budget and in a temp file beyond it.
+    // Lets the render pool finish without waiting on the client; the caller copies the PDF out and closes it.
+    public RenderedPdf renderTicketPdf(BookingDetails booking, Events event, Users user) throws IOException {
+        ScratchFile scratch = new ScratchFile(memoryUsage);
+        try {
+            RandomAccess buffer = scratch.createBuffer();
+            writeTicketPdf(booking, event, user, new RandomAccessOutputStream(buffer));
+            return new RenderedPdf(scratch, buffer);
+        } catch (IOException | RuntimeException e) {
+            scratch.close();
+            throw e;
+        }
+    }
+
+    // Saves straight into out, pages are buffered per memoryUsage and never copied into a byte[]
+    public void writeTicketPdf(BookingDetails booking, Events event, Users user, OutputStream out) throws IOException {
         if (booking == null || event == null || user == null) {
             logger.error("Cannot generate PDF, essential data is missing.");
             throw new IllegalArgumentException("Booking, Event, and User data must not be null.");
@@ -43,7 +111,7 @@ public class PdfTicketService {
             // Return an empty PDF or throw an error, depending on desired behavior
             // For now, let's throw an error or return a minimal PDF.
             // Creating a minimal PDF indicating no tickets:
-            try (PDDocument document = new PDDocument()) {
+            try (PDDocument document = new PDDocument(memoryUsage)) {
                  PDPage page = new PDPage(PDRectangle.A4);
                  document.addPage(page);
                  try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
@@ -53,31 +121,15 @@ public class PdfTicketService {
                      contentStream.showText("No tickets found for this booking.");
                      contentStream.endText();
                  }
-                 ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                 document.save(byteArrayOutputStream);
-                 return byteArrayOutputStream.toByteArray();
+                 document.save(out);
+                 return;
             }
         }
 
 
-        try (PDDocument document = new PDDocument()) {
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a");
-
-            // Optional: Add a logo to the first page or each ticket page
-            PDImageXObject logoImage = null;
-            try {
-                ClassPathResource logoResource = new ClassPathResource("EventureLogo.jpeg"); // Make sure this exists!
-                if (logoResource.exists()) {
-                    try (InputStream logoInputStream = logoResource.getInputStream()) {
-                        logoImage = PDImageXObject.createFromByteArray(document, logoInputStream.readAllBytes(), "logo");
-                    }
-                } else {
-                    logger.warn("Logo EventureLogo.jpeg not found in classpath.");
-                }
-            } catch (IOException e) {
-                logger.error("Error loading logo for PDF: {}", e.getMessage(), e);
-            }
-
+        try (PDDocument document = new PDDocument(memoryUsage)) {
+            // Everything that is the same on every ticket is drawn once and reused by each page
+            StaticLayer staticLayer = buildStaticLayer(document, booking, event, user);
 
             for (int i = 0; i < booking.getTickets().size(); i++) {
                 Ticket ticket = booking.getTickets().get(i);
@@ -85,97 +137,29 @@ public class PdfTicketService {
                 document.addPage(page);
 
                 try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-                    float yPosition = page.getMediaBox().getHeight() - 50;
-                    float leftMargin = 50;
-                    float rightMargin = page.getMediaBox().getWidth() - 50;
-                    float contentWidth = rightMargin - leftMargin;
-
-                    // Draw Logo if available
-                    if (logoImage != null) {
-                        float logoWidth = 100; // Adjust as needed
-                        float logoHeight = (logoImage.getHeight() * logoWidth) / logoImage.getWidth();
-                        contentStream.drawImage(logoImage, leftMargin, yPosition - logoHeight, logoWidth, logoHeight);
-                        yPosition -= (logoHeight + 20); // Adjust spacing
-                    }
+                    float leftMargin = MARGIN;
+                    float contentWidth = PAGE_WIDTH - 2 * MARGIN;
+                    float yPosition = staticLayer.contentBottom;
 
-                    // Event Name (centered or left-aligned)
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA_BOLD, 18);
-                    contentStream.newLineAtOffset(leftMargin, yPosition);
-                    contentStream.showText(event.getEventName() != null ? event.getEventName() : "Event Name Missing");
-                    contentStream.endText();
-                    yPosition -= 25;
+                    contentStream.drawForm(staticLayer.form);
 
                     // Ticket Header
                     contentStream.beginText();
                     contentStream.setFont(PDType1Font.HELVETICA_BOLD, 14);
-                    contentStream.newLineAtOffset(leftMargin, yPosition);
+                    contentStream.newLineAtOffset(leftMargin, staticLayer.ticketHeaderY);
                     contentStream.showText("Ticket " + (i + 1) + " of " + booking.getTicketCount());
                     contentStream.endText();
-                    yPosition -= 20;
-
-                    // Booking ID
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA, 10);
-                    contentStream.newLineAtOffset(leftMargin, yPosition);
-                    contentStream.showText("Booking ID: " + booking.getId());
-                    contentStream.endText();
-                    yPosition -= 15;
-
-                    // User Name
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA, 10);
-                    contentStream.newLineAtOffset(leftMargin, yPosition);
-                    contentStream.showText("Booked By: " + (user.getFirstName() != null ? user.getFirstName() : "") + " " + (user.getLastName() != null ? user.getLastName() : ""));
-                    contentStream.endText();
-                    yPosition -= 20;
-
-                    // Event Details
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-                    contentStream.newLineAtOffset(leftMargin, yPosition);
-                    contentStream.showText("Event Details:");
-                    contentStream.endText();
-                    yPosition -= 15;
-
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA, 10);
-                    contentStream.newLineAtOffset(leftMargin, yPosition);
-                    contentStream.showText("Date & Time: " + (event.getEventDateTime() != null ? event.getEventDateTime().format(dateFormatter) : "N/A"));
-                    contentStream.endText();
-                    yPosition -= 15;
-
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA, 10);
-                    contentStream.newLineAtOffset(leftMargin, yPosition);
-                    String address = (event.getAddress() != null ? event.getAddress() + ", " : "") +
-                                     (event.getCity() != null ? event.getCity() + ", " : "") +
-                                     (event.getState() != null ? event.getState() : "");
-                    contentStream.showText("Venue: " + address);
-                    contentStream.endText();
-                    yPosition -= 15;
-
-                    if (event.getEventInstruction() != null && !event.getEventInstruction().isEmpty()) {
-                         contentStream.beginText();
-                         contentStream.setFont(PDType1Font.HELVETICA, 10);
-                         contentStream.newLineAtOffset(leftMargin, yPosition);
-                         contentStream.showText("Instructions: " + event.getEventInstruction());
-                         contentStream.endText();
-                         yPosition -= 15;
-                    }
-
 
                     // QR Code
                     if (ticket.getTicketId() != null && !ticket.getTicketId().isEmpty()) {
                         try {
-                            byte[] qrImageBytes = qrCodeService.generateQrCodeImage(ticket.getTicketId(), 150, 150); // Adjust QR size
-                            PDImageXObject pdQrImage = PDImageXObject.createFromByteArray(document, qrImageBytes, "qr_" + ticket.getTicketId());
+                            BitMatrix qrModules = qrCodeService.modules(ticket.getTicketId());
+                            float qrSize = QrCodeService.PDF_SIZE;
                             // Center QR code or position it
-                            float qrX = leftMargin + (contentWidth / 2) - (pdQrImage.getWidth() / 2); // Example centering
-                            float qrY = yPosition - pdQrImage.getHeight() - 20;
+                            float qrX = leftMargin + (contentWidth / 2) - (qrSize / 2); // Example centering
+                            float qrY = yPosition - qrSize - 20;
                             if (qrY < 50) qrY = 50; // Don't let it go off page
-                            contentStream.drawImage(pdQrImage, qrX, qrY, pdQrImage.getWidth(), pdQrImage.getHeight());
-                            yPosition = qrY - 15; // Adjust yPosition below QR code
+                            drawQrCode(contentStream, qrModules, qrX, qrY, qrSize);
 
                             contentStream.beginText();
                             contentStream.setFont(PDType1Font.HELVETICA, 8);
@@ -190,7 +174,6 @@ public class PdfTicketService {
                             contentStream.newLineAtOffset(leftMargin, yPosition - 50);
                             contentStream.showText("QR Code Error for Ticket ID: " + ticket.getTicketId());
                             contentStream.endText();
-                            yPosition -= 70;
                         }
                     } else {
                         contentStream.beginText();
@@ -198,22 +181,12 @@ public class PdfTicketService {
                         contentStream.newLineAtOffset(leftMargin, yPosition - 50);
                         contentStream.showText("QR Code Not Available for Ticket ID: " + ticket.getTicketId());
                         contentStream.endText();
-                        yPosition -= 70;
                     }
-
-                    // Footer or additional ticket info
-                    contentStream.beginText();
-                    contentStream.setFont(PDType1Font.HELVETICA_OBLIQUE, 8);
-                    contentStream.newLineAtOffset(leftMargin, 30);
-                    contentStream.showText("Thank you for booking with Eventure! Present this ticket at the entrance.");
-                    contentStream.endText();
                 }
             }
 
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            document.save(byteArrayOutputStream);
+            document.save(out);
             logger.info("PDF generated successfully for booking ID: {}", booking.getId());
-            return byteArrayOutputStream.toByteArray();
 
         } catch (IOException e) {
             logger.error("IOException while generating PDF for booking ID {}: {}", (booking != null ? booking.getId() : "N/A"), e.getMessage(), e);
@@ -223,4 +196,121 @@ public class PdfTicketService {
             throw new IOException("Unexpected error generating PDF", e); // Wrap in IOException or a custom PDFException
         }
     }
-}
\ No newline at end of file
+
+    // Draws the code as filled rectangles, one per run of dark modules, so it stays sharp at any zoom
+    private static void drawQrCode(PDPageContentStream contentStream, BitMatrix modules, float x, float y, float size) throws IOException {
+        int span = modules.getWidth() + 2 * QrCodeService.QUIET_ZONE;
+        float moduleSize = size / span;
+        float top = y + size - QrCodeService.QUIET_ZONE * moduleSize;
+        float left = x + QrCodeService.QUIET_ZONE * moduleSize;
+        for (int row = 0; row < modules.getHeight(); row++) {
+            int col = 0;
+            while (col < modules.getWidth()) {
+                if (!modules.get(col, row)) {
+                    col++;
+                    continue;
+                }
+                int start = col;
+                while (col < modules.getWidth() && modules.get(col, row)) {
+                    col++;
+                }
+                contentStream.addRect(left + start * moduleSize, top - (row + 1) * moduleSize,
+                        (col - start) * moduleSize, moduleSize);
+            }
+        }
+        contentStream.fill();
+    }
+
+    // Logo, event and booking details and the footer, drawn once per document as a form XObject
+    // that every ticket page reuses. Only the ticket header, QR code and ticket ID are per page.
+    private StaticLayer buildStaticLayer(PDDocument document, BookingDetails booking, Events event, Users user) throws IOException {
+        PDFormXObject form = new PDFormXObject(document);
+        form.setBBox(PDRectangle.A4);
+        form.setResources(new PDResources());
+
+        float yPosition = PAGE_HEIGHT - 50;
+        float ticketHeaderY;
+        try (PDFormContentStream contentStream = new PDFormContentStream(form)) {
+            // JPEG data is embedded as is, it is not decoded again
+            if (logoBytes != null) {
+                PDImageXObject logoImage = PDImageXObject.createFromByteArray(document, logoBytes, "logo");
+                float logoHeight = (logoImage.getHeight() * LOGO_WIDTH) / logoImage.getWidth();
+                contentStream.drawImage(logoImage, MARGIN, yPosition - logoHeight, LOGO_WIDTH, logoHeight);
+                yPosition -= (logoHeight + 20); // Adjust spacing
+            }
+
+            contentStream.beginText();
+            contentStream.newLineAtOffset(MARGIN, yPosition);
+            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 18);
+            contentStream.showText(event.getEventName() != null ? event.getEventName() : "Event Name Missing");
+
+            // Ticket header goes in this gap on each page
+            ticketHeaderY = yPosition - 25;
+            contentStream.newLineAtOffset(0, -45);
+            contentStream.setFont(PDType1Font.HELVETICA, 10);
+            contentStream.showText("Booking ID: " + booking.getId());
+            contentStream.newLineAtOffset(0, -15);
+            contentStream.showText("Booked By: " + (user.getFirstName() != null ? user.getFirstName() : "") + " " + (user.getLastName() != null ? user.getLastName() : ""));
+
+            contentStream.newLineAtOffset(0, -20);
+            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
+            contentStream.showText("Event Details:");
+            contentStream.newLineAtOffset(0, -15);
+            contentStream.setFont(PDType1Font.HELVETICA, 10);
+            contentStream.showText("Date & Time: " + (event.getEventDateTime() != null ? event.getEventDateTime().format(DATE_FORMATTER) : "N/A"));
+            contentStream.newLineAtOffset(0, -15);
+            String address = (event.getAddress() != null ? event.getAddress() + ", " : "") +
+                             (event.getCity() != null ? event.getCity() + ", " : "") +
+                             (event.getState() != null ? event.getState() : "");
+            contentStream.showText("Venue: " + address);
+            yPosition -= 25 + 20 + 15 + 20 + 15 + 15 + 15;
+
+            if (event.getEventInstruction() != null && !event.getEventInstruction().isEmpty()) {
+                contentStream.newLineAtOffset(0, -15);
+                contentStream.showText("Instructions: " + event.getEventInstruction());
+                yPosition -= 15;
+            }
+            contentStream.endText();
+
+            // Footer or additional ticket info
+            contentStream.beginText();
+            contentStream.setFont(PDType1Font.HELVETICA_OBLIQUE, 8);
+            contentStream.newLineAtOffset(MARGIN, 30);
+            contentStream.showText("Thank you for booking with Eventure! Present this ticket at the entrance.");
+            contentStream.endText();
+        }
+        return new StaticLayer(form, ticketHeaderY, yPosition);
+    }
+
+    public static final class RenderedPdf implements Closeable {
+        private final ScratchFile scratch;
+        private final RandomAccess buffer;
+
+        private RenderedPdf(ScratchFile scratch, RandomAccess buffer) {
+            this.scratch = scratch;
+            this.buffer = buffer;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            new RandomAccessInputStream(buffer).transferTo(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            scratch.close();
+        }
+    }
+
+    private static final class StaticLayer {
+        final PDFormXObject form;
+        final float ticketHeaderY;
+        // Per-ticket content starts below this line
+        final float contentBottom;
+
+        StaticLayer(PDFormXObject form, float ticketHeaderY, float contentBottom) {
+            this.form = form;
+            this.ticketHeaderY = ticketHeaderY;
+            this.contentBottom = contentBottom;
+        }
+    }
+}
@@ -1,26 +1,116 @@
 package com.eventure.events.Services;
 
+import com.eventure.events.model.QrCodeImage;
+import com.eventure.events.repository.QrCodeImageRepo;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * QR code PNGs, cached by (content, size) in an LRU bounded by total bytes. A
+ * ticket's codes are rendered in the background right after booking, so the
+ * booking details and PDF find them ready. With qr.cache.persist the PNGs are
+ * also kept in the QrCodes collection, which keeps the cache warm across restarts.
+ * The PDF draws codes as vector paths from {@link #modules}, not as images.
+ */
 @Service
 public class QrCodeService {
+    private static final Logger logger = LoggerFactory.getLogger(QrCodeService.class);
 
+    // Size of the PNG in the booking details view, and of the code on the PDF ticket in points
+    public static final int DETAIL_SIZE = 200;
+    public static final int PDF_SIZE = 150;
+    // Same as QRCodeWriter's default margin, in modules
+    public static final int QUIET_ZONE = 4;
+
+    private final QrCodeImageRepo qrCodeImageRepo;
+    private final RenderBulkhead renderBulkhead;
+    private final boolean persist;
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private final ThreadPoolExecutor prerenderer;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer renderTime;
+
+    @Autowired
+    public QrCodeService(QrCodeImageRepo qrCodeImageRepo, RenderBulkhead renderBulkhead, MeterRegistry meterRegistry,
+                         @Value("${qr.cache.max-bytes:16777216}") long maxBytes,
+                         @Value("${qr.cache.persist:false}") boolean persist) {
+        this.qrCodeImageRepo = qrCodeImageRepo;
+        this.renderBulkhead = renderBulkhead;
+        this.maxBytes = maxBytes;
+        this.persist = persist;
+        this.prerenderer = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1000), r -> {
+            Thread t = new Thread(r, "qr-prerender");
+            t.setDaemon(true);
+            return t;
+        });
+        this.hits = meterRegistry.counter("qr.cache.gets", "result", "hit");
+        this.misses = meterRegistry.counter("qr.cache.gets", "result", "miss");
+        this.renderTime = Timer.builder("qr.render")
+                .description("Time to render a QR code PNG on a cache miss")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prerenderer.shutdownNow();
+    }
+
+    // Misses are rendered on the render pool, throws RenderBusyException when it is full
     public byte[] generateQrCodeImage(String text, int width, int height) throws WriterException, IOException {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
+        return image(text, width, height, true);
+    }
 
-        ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", pngOutputStream);
-        return pngOutputStream.toByteArray();
+    private byte[] image(String text, int width, int height, boolean onRenderPool) throws WriterException, IOException {
+        String key = width + "x" + height + ":" + text;
+        byte[] png = cached(key);
+        if (png != null) {
+            hits.increment();
+            return png;
+        }
+        misses.increment();
+
+        if (persist) {
+            png = qrCodeImageRepo.findById(key).map(QrCodeImage::getPng).orElse(null);
+        }
+        if (png == null) {
+            long start = System.nanoTime();
+            png = onRenderPool ? renderBulkhead.call(() -> render(text, width, height)) : render(text, width, height);
+            renderTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (persist) {
+                qrCodeImageRepo.save(new QrCodeImage(key, png, new Date()));
+            }
+        }
+        store(key, png);
+        return png;
     }
 
     // Optional: Method to generate a Base64 encoded string of the QR image
@@ -28,4 +118,83 @@ public class QrCodeService {
         byte[] imageBytes = generateQrCodeImage(text, width, height);
         return Base64.getEncoder().encodeToString(imageBytes);
     }
-}
\ No newline at end of file
+
+    // One bit per module, without the quiet zone. Same code QRCodeWriter would draw.
+    public BitMatrix modules(String text) throws WriterException {
+        ByteMatrix code = Encoder.encode(text, ErrorCorrectionLevel.L).getMatrix();
+        BitMatrix modules = new BitMatrix(code.getWidth(), code.getHeight());
+        for (int y = 0; y < code.getHeight(); y++) {
+            for (int x = 0; x < code.getWidth(); x++) {
+                if (code.get(x, y) == 1) {
+                    modules.set(x, y);
+                }
+            }
+        }
+        return modules;
+    }
+
+    // Scalable version of the code, one path with a rectangle per run of dark modules
+    public String generateQrCodeSvg(String text, int size) throws WriterException {
+        BitMatrix modules = modules(text);
+        int span = modules.getWidth() + 2 * QUIET_ZONE;
+        StringBuilder svg = new StringBuilder(4096)
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(span).append(' ').append(span)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path d=\"");
+        for (int y = 0; y < modules.getHeight(); y++) {
+            int x = 0;
+            while (x < modules.getWidth()) {
+                if (!modules.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < modules.getWidth() && modules.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(start + QUIET_ZONE).append(' ').append(y + QUIET_ZONE)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        return svg.append("\"/></svg>").toString();
+    }
+
+    // Renders the details PNG of new tickets off the request thread
+    public void prerender(List<String> contents) {
+        try {
+            prerenderer.execute(() -> {
+                for (String content : contents) {
+                    try {
+                        // Already on its own single thread, kept off the render pool
+                        image(content, DETAIL_SIZE, DETAIL_SIZE, false);
+                    } catch (Exception e) {
+                        logger.warn("Could not prerender QR code for {}: {}", content, e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Busy, the codes get rendered when they are first viewed
+        }
+    }
+
+    private byte[] render(String text, int width, int height) throws WriterException {
+        QRCodeWriter qrCodeWriter = new QRCodeWriter();
+        BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
+        return QrPngEncoder.encode(bitMatrix);
+    }
+
+    private synchronized byte[] cached(String key) {
+        return cache.get(key);
+    }
+
+    private synchronized void store(String key, byte[] png) {
+        byte[] previous = cache.put(key, png);
+        cachedBytes += png.length - (previous == null ? 0 : previous.length);
+        Iterator<byte[]> eldest = cache.values().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.eventure.events.Services;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a BitMatrix straight to a 1-bit grayscale PNG. MatrixToImageWriter
+ * goes through an ARGB BufferedImage and ImageIO, which costs a lot more for
+ * an image that only has two colours. Deflater and buffers are kept per thread.
+ */
+final class QrPngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private QrPngEncoder() {
+    }
+
+    static byte[] encode(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int stride = (width + 7) / 8 + 1; // filter byte + packed pixels
+        Buffers buffers = BUFFERS.get();
+
+        // Raw scanlines, a set bit is white
+        byte[] raw = buffers.raw(stride * height);
+        for (int y = 0; y < height; y++) {
+            int row = y * stride;
+            raw[row] = 0; // filter: none
+            for (int x = 0; x < width; x++) {
+                if (!matrix.get(x, y)) {
+                    raw[row + 1 + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+
+        Deflater deflater = buffers.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, stride * height);
+        deflater.finish();
+        ByteArrayOutputStream idat = buffers.idat;
+        idat.reset();
+        byte[] chunk = buffers.chunk;
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            idat.write(chunk, 0, n);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(idat.size() + 64);
+        out.write(SIGNATURE, 0, SIGNATURE.length);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // grayscale
+        // compression, filter and interlace stay 0
+        writeChunk(out, IHDR, header, header.length, buffers.crc);
+        writeChunk(out, IDAT, idat.toByteArray(), idat.size(), buffers.crc);
+        writeChunk(out, IEND, new byte[0], 0, buffers.crc);
+        return out.toByteArray();
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, byte[] type, byte[] data, int length, CRC32 crc) {
+        byte[] word = new byte[4];
+        putInt(word, 0, length);
+        out.write(word, 0, 4);
+        out.write(type, 0, 4);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(type);
+        crc.update(data, 0, length);
+        putInt(word, 0, (int) crc.getValue());
+        out.write(word, 0, 4);
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+
+    private static final class Buffers {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        final CRC32 crc = new CRC32();
+        final ByteArrayOutputStream idat = new ByteArrayOutputStream(1024);
+        final byte[] chunk = new byte[4096];
+        private byte[] raw = new byte[0];
+
+        byte[] raw(int size) {
+            if (raw.length < size) {
+                raw = new byte[size];
+            } else {
+                Arrays.fill(raw, 0, size, (byte) 0);
+            }
+            return raw;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.RenderBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs CPU heavy rendering (ticket PDFs, QR codes) on its own pool sized to the
+ * cores, so a burst of downloads cannot take every request thread. Work is
+ * admitted against threads + render.pool.queue-capacity slots; when none is free
+ * the caller gets a RenderBusyException (503 with Retry-After) right away
+ * instead of waiting in line.
+ */
+@Service
+public class RenderBulkhead {
+
+    private final ThreadPoolExecutor workers;
+    private final Semaphore slots;
+    private final int retryAfterSeconds;
+
+    private final Counter rejected;
+    private final Timer latency;
+
+    @Autowired
+    public RenderBulkhead(MeterRegistry meterRegistry,
+                          @Value("${render.pool.threads:0}") int threads,
+                          @Value("${render.pool.queue-capacity:32}") int queueCapacity,
+                          @Value("${render.pool.retry-after-seconds:2}") int retryAfterSeconds) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.slots = new Semaphore(size + queueCapacity);
+
+        AtomicInteger threadId = new AtomicInteger();
+        // The queue never holds more than queueCapacity, admission is done by the semaphore
+        this.workers = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "render-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("render.pool.active", workers, ThreadPoolExecutor::getActiveCount)
+                .description("Render jobs running")
+                .register(meterRegistry);
+        Gauge.builder("render.pool.queued", workers, w -> w.getQueue().size())
+                .description("Render jobs waiting for a thread")
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("render.pool.rejected");
+        this.latency = Timer.builder("render.pool.latency")
+                .description("Time from submitting a render job to its completion, queueing included")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // Takes a slot now, for work that can only start later (a streamed response body).
+    // The slot is given back when its job finishes or is released.
+    public Slot reserve() {
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            throw new RenderBusyException("Too many tickets being rendered, please retry shortly.", retryAfterSeconds);
+        }
+        return new Slot();
+    }
+
+    // Runs task on the pool and waits for its result
+    public <T> T call(Callable<T> task) throws IOException {
+        return reserve().call(task);
+    }
+
+    public class Slot {
+        private final AtomicBoolean held = new AtomicBoolean(true);
+
+        private Slot() {
+        }
+
+        public <T> T call(Callable<T> task) throws IOException {
+            if (!held.get()) {
+                throw new IllegalStateException("Render slot already used");
+            }
+            long start = System.nanoTime();
+            Future<T> result = workers.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    release();
+                    latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                result.cancel(true);
+                release();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for render");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IOException(cause.getMessage(), cause);
+            }
+        }
+
+        public void release() {
+            if (held.compareAndSet(true, false)) {
+                slots.release();
+            }
+        }
+    }
+}
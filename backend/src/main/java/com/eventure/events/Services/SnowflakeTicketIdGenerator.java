@@ -0,0 +1,86 @@
+package com.eventure.events.Services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time ordered ticket IDs: 41 bits of milliseconds since 2024-01-01, 10 bits of
+ * node id and a 12 bit per-millisecond sequence, written as 13 Crockford base32
+ * characters behind a "T". IDs from one node never repeat, and IDs from different
+ * nodes cannot collide as long as each node has its own ticket.id.node. The node
+ * id is only derived from host and pid for a single instance; with app.instances
+ * above one it has to be set explicitly.
+ *
+ * Lock free: the last (timestamp, sequence) pair lives in one AtomicLong. When a
+ * millisecond runs out of sequence numbers the generator borrows from the next
+ * one, and it does not go backwards if the wall clock does.
+ */
+@Component
+public class SnowflakeTicketIdGenerator implements TicketIdGenerator {
+
+    static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeBits;
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeTicketIdGenerator(@Value("${ticket.id.node:-1}") long node,
+                                      @Value("${app.instances:1}") int instances) {
+        if (node < 0 && instances > 1) {
+            throw new IllegalStateException("TICKET_ID_NODE must be set to a distinct value per instance when running "
+                    + instances + " instances");
+        }
+        long resolved = node >= 0 ? node : defaultNode();
+        if (resolved > MAX_NODE) {
+            throw new IllegalArgumentException("ticket.id.node must be between 0 and " + MAX_NODE);
+        }
+        this.nodeBits = resolved << SEQUENCE_BITS;
+    }
+
+    @Override
+    public String nextId() {
+        long next;
+        while (true) {
+            long current = last.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            // Either a fresh millisecond, or the next sequence number (which carries
+            // into the following millisecond once the sequence is used up)
+            next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (last.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        long timestamp = next >>> SEQUENCE_BITS;
+        long id = (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+        return encode(id);
+    }
+
+    // 63 bits -> 13 base32 digits, fixed width so string order follows time order
+    static String encode(long id) {
+        char[] out = new char[14];
+        out[0] = 'T';
+        for (int i = 13; i > 0; i--) {
+            out[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    private static long defaultNode() {
+        String name;
+        try {
+            name = InetAddress.getLocalHost().getHostName() + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        } catch (Exception e) {
+            name = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return (name.hashCode() & 0x7fffffff) % (MAX_NODE + 1);
+    }
+}
@@ -0,0 +1,137 @@
+package com.eventure.events.Services;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Available tickets for one event spread over several CAS counters so parallel
+ * bookings do not all spin on the same cache line. A booking first tries to take
+ * everything from a single stripe; only when no stripe can cover it does it fall
+ * back to draining stripes under a lock.
+ *
+ * The counter also keeps the deltas that have not been written to MongoDB yet.
+ */
+public class StripedTicketCounter {
+
+    private final AtomicIntegerArray stripes;
+    private final int mask;
+    private final Object drainLock = new Object();
+
+    private final AtomicInteger pendingCapacity = new AtomicInteger();
+    private final AtomicInteger pendingAvailable = new AtomicInteger();
+    private final AtomicInteger pendingAttendees = new AtomicInteger();
+
+    public StripedTicketCounter(int available, int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new AtomicIntegerArray(size);
+        this.mask = size - 1;
+        int share = Math.max(0, available) / size;
+        int rest = Math.max(0, available) % size;
+        for (int i = 0; i < size; i++) {
+            stripes.set(i, share + (i < rest ? 1 : 0));
+        }
+    }
+
+    public boolean tryTake(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        int start = ThreadLocalRandom.current().nextInt() & mask;
+        for (int i = 0; i <= mask; i++) {
+            int idx = (start + i) & mask;
+            int current;
+            while ((current = stripes.get(idx)) >= count) {
+                if (stripes.compareAndSet(idx, current, current - count)) {
+                    recordTaken(count);
+                    return true;
+                }
+            }
+        }
+        synchronized (drainLock) {
+            return takeAcrossStripes(count, false) == count;
+        }
+    }
+
+    public void give(int count) {
+        if (count <= 0) {
+            return;
+        }
+        stripes.addAndGet(ThreadLocalRandom.current().nextInt() & mask, count);
+        pendingAvailable.addAndGet(count);
+        pendingAttendees.addAndGet(-count);
+    }
+
+    /**
+     * Grows or shrinks the capacity. Shrinking never takes more than what is
+     * still available, same as the MongoDB path.
+     */
+    public void adjustCapacity(int delta) {
+        if (delta >= 0) {
+            stripes.addAndGet(0, delta);
+            pendingAvailable.addAndGet(delta);
+        } else {
+            int taken;
+            synchronized (drainLock) {
+                taken = takeAcrossStripes(-delta, true);
+            }
+            pendingAvailable.addAndGet(-taken);
+        }
+        pendingCapacity.addAndGet(delta);
+    }
+
+    public int available() {
+        int total = 0;
+        for (int i = 0; i <= mask; i++) {
+            total += stripes.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Hands out the unflushed deltas as {capacity, available, attendees} and
+     * resets them. The caller keeps them until the write is confirmed.
+     */
+    public int[] drainDeltas() {
+        return new int[] {
+                pendingCapacity.getAndSet(0),
+                pendingAvailable.getAndSet(0),
+                pendingAttendees.getAndSet(0)
+        };
+    }
+
+    public boolean hasPendingDeltas() {
+        return pendingCapacity.get() != 0 || pendingAvailable.get() != 0 || pendingAttendees.get() != 0;
+    }
+
+    private void recordTaken(int count) {
+        pendingAvailable.addAndGet(-count);
+        pendingAttendees.addAndGet(count);
+    }
+
+    // Caller holds drainLock. Returns how many tickets were taken; when partial
+    // is false the tickets go back if the full count could not be collected.
+    private int takeAcrossStripes(int count, boolean partial) {
+        int collected = 0;
+        for (int i = 0; i <= mask && collected < count; i++) {
+            int current;
+            while ((current = stripes.get(i)) > 0) {
+                int take = Math.min(current, count - collected);
+                if (stripes.compareAndSet(i, current, current - take)) {
+                    collected += take;
+                    break;
+                }
+            }
+        }
+        if (collected < count && !partial) {
+            if (collected > 0) {
+                stripes.addAndGet(0, collected);
+            }
+            return 0;
+        }
+        if (!partial) {
+            recordTaken(collected);
+        }
+        return collected;
+    }
+}
@@ -0,0 +1,182 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.TicketHold;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.TicketHoldRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reserve -> confirm flow for paid checkouts. A hold takes tickets from the
+ * inventory when the PayPal order is created and bookEvent turns it into a
+ * booking. Holds that are never confirmed go back to the inventory when their
+ * TTL runs out; expiry is driven by a {@link TimingWheel} so the sweep does not
+ * scan the open holds.
+ *
+ * Holds are also written to TicketHolds so tickets taken by a hold are not lost
+ * if the backend restarts before the hold is confirmed or expired. Every instance
+ * recovers the open holds on start, so removing the record is what settles a
+ * hold: only the confirm, release or expiry that removes it takes effect.
+ */
+@Service
+public class TicketHoldService {
+    private static final Logger logger = LoggerFactory.getLogger(TicketHoldService.class);
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+
+    private final TicketHoldRepo ticketHoldRepo;
+    private final EventRepo eventRepo;
+    private final TicketInventory ticketInventory;
+    private final long ttlMillis;
+    private final TimingWheel<String> wheel;
+    private final Map<String, OpenHold> openHolds = new ConcurrentHashMap<>();
+
+    private static final class OpenHold {
+        private final TicketHold hold;
+        private final TimingWheel.Timeout<String> timeout;
+
+        private OpenHold(TicketHold hold, TimingWheel.Timeout<String> timeout) {
+            this.hold = hold;
+            this.timeout = timeout;
+        }
+    }
+
+    @Autowired
+    public TicketHoldService(TicketHoldRepo ticketHoldRepo, EventRepo eventRepo, TicketInventory ticketInventory,
+                             @Value("${holds.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${holds.tick-ms:1000}") long tickMillis) {
+        this.ticketHoldRepo = ticketHoldRepo;
+        this.eventRepo = eventRepo;
+        this.ticketInventory = ticketInventory;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.wheel = new TimingWheel<>(tickMillis, 1024, System.currentTimeMillis());
+    }
+
+    public TicketHold createHold(String eventId, String userId, int ticketCount) {
+        if (ticketCount <= 0) {
+            throw new MyException("Ticket count must be greater than zero.");
+        }
+        if (userId == null || userId.isEmpty()) {
+            throw new MyException("User ID is required to hold tickets.");
+        }
+        if (!eventRepo.existsById(eventId)) {
+            throw new MyException("Event not found with id: " + eventId);
+        }
+        if (!ticketInventory.reserve(eventId, ticketCount)) {
+            throw new MyException("Not enough tickets available, " + ticketCount + " requested.");
+        }
+
+        long expiresAtMillis = System.currentTimeMillis() + ttlMillis;
+        TicketHold hold = TicketHold.builder()
+                .eventId(eventId)
+                .userId(userId)
+                .ticketCount(ticketCount)
+                .expiresAt(toLocalDateTime(expiresAtMillis))
+                .build();
+        try {
+            hold = ticketHoldRepo.save(hold);
+        } catch (RuntimeException e) {
+            ticketInventory.release(eventId, ticketCount);
+            throw e;
+        }
+        track(hold, expiresAtMillis);
+        return hold;
+    }
+
+    /**
+     * Turns the hold into a booking. The tickets stay taken, the hold just stops
+     * counting down. Removing the TicketHolds record decides between confirmation
+     * and a release or expiry on any instance, so a hold this instance does not
+     * track can still be confirmed.
+     *
+     * @return false if the hold is unknown, already used or expired, or does not
+     *         match the booking; the caller then has to reserve tickets itself
+     */
+    public boolean confirmHold(String holdId, String userId, String eventId, int ticketCount) {
+        OpenHold open = openHolds.get(holdId);
+        if (open == null) {
+            return ticketHoldRepo.removeByIdAndEventIdAndUserIdAndTicketCountAndExpiresAtAfter(
+                    holdId, eventId, userId, ticketCount, LocalDateTime.now()) == 1;
+        }
+        TicketHold hold = open.hold;
+        if (!hold.getEventId().equals(eventId) || !hold.getUserId().equals(userId) || hold.getTicketCount() != ticketCount) {
+            logger.warn("Hold {} does not match booking request for event {} by user {}", holdId, eventId, userId);
+            return false;
+        }
+        if (!openHolds.remove(holdId, open)) {
+            return false;
+        }
+        open.timeout.cancel();
+        return ticketHoldRepo.removeById(holdId) == 1;
+    }
+
+    public void releaseHold(String holdId) {
+        OpenHold open = openHolds.remove(holdId);
+        if (open != null) {
+            open.timeout.cancel();
+            release(open.hold);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${holds.tick-ms:1000}")
+    public void expireHolds() {
+        for (String holdId : wheel.advance(System.currentTimeMillis())) {
+            OpenHold open = openHolds.remove(holdId);
+            if (open != null) {
+                logger.info("Hold {} for {} tickets of event {} expired", holdId, open.hold.getTicketCount(), open.hold.getEventId());
+                release(open.hold);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverHolds() {
+        long now = System.currentTimeMillis();
+        for (TicketHold hold : ticketHoldRepo.findAll()) {
+            if (openHolds.containsKey(hold.getId())) {
+                continue;
+            }
+            long expiresAtMillis = hold.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (expiresAtMillis <= now) {
+                release(hold);
+            } else {
+                track(hold, expiresAtMillis);
+            }
+        }
+    }
+
+    private void track(TicketHold hold, long expiresAtMillis) {
+        TimingWheel.Timeout<String> timeout = wheel.schedule(hold.getId(), expiresAtMillis);
+        openHolds.put(hold.getId(), new OpenHold(hold, timeout));
+    }
+
+    private void release(TicketHold hold) {
+        try {
+            // Only the caller that removes the record gives the tickets back, the hold may
+            // have been confirmed or released by another instance that recovered it as well
+            if (!ticketInventory.releaseAfter(hold.getEventId(), hold.getTicketCount(),
+                    () -> ticketHoldRepo.removeById(hold.getId()) == 1)) {
+                logger.info("Hold {} was already confirmed or released", hold.getId());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to release hold {}, retrying later: {}", hold.getId(), e.getMessage(), e);
+            track(hold, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
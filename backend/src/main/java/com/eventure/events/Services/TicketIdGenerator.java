@@ -0,0 +1,9 @@
+package com.eventure.events.Services;
+
+/**
+ * Produces the ticket IDs printed on tickets and encoded in the QR codes.
+ */
+public interface TicketIdGenerator {
+
+    String nextId();
+}
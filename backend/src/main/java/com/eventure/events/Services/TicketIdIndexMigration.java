@@ -0,0 +1,70 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.MigrationState;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.MigrationStateRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds the unique index on ticket IDs in the background after startup instead
+ * of through auto index creation. Legacy ticket IDs are 8 hex characters and can
+ * collide; when duplicates exist the index only covers bookings created from now
+ * on, so old data never stops the app from booting. A failed build is logged and
+ * retried on the next start.
+ */
+@Service
+public class TicketIdIndexMigration {
+    private static final Logger logger = LoggerFactory.getLogger(TicketIdIndexMigration.class);
+    static final String MIGRATION_ID = "ticket-id-unique-index";
+    private static final int DUPLICATE_SAMPLE = 20;
+
+    private final BookingRepo bookingRepo;
+    private final MigrationStateRepo migrationStateRepo;
+
+    @Autowired
+    public TicketIdIndexMigration(BookingRepo bookingRepo, MigrationStateRepo migrationStateRepo) {
+        this.bookingRepo = bookingRepo;
+        this.migrationStateRepo = migrationStateRepo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread worker = new Thread(this::run, "ticket-id-index");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void run() {
+        try {
+            MigrationState state = migrationStateRepo.findById(MIGRATION_ID)
+                    .orElseGet(() -> MigrationState.builder().id(MIGRATION_ID).build());
+            if (state.isDone()) {
+                return;
+            }
+            Date now = new Date();
+            List<String> duplicates = bookingRepo.findDuplicateTicketIds(DUPLICATE_SAMPLE);
+            if (duplicates.isEmpty()) {
+                bookingRepo.ensureTicketIdIndex(null);
+                logger.info("Ticket id unique index built");
+            } else {
+                bookingRepo.ensureTicketIdIndex(now);
+                state.setProcessed(duplicates.size());
+                logger.warn("Legacy bookings share ticket ids (first {}: {}), the unique index only covers bookings created from {}",
+                        duplicates.size(), duplicates, now);
+            }
+            state.setDone(true);
+            state.setUpdatedAt(now);
+            migrationStateRepo.save(state);
+        } catch (RuntimeException e) {
+            logger.error("Ticket id unique index not built, it is retried on the next start: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.eventure.events.Services;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Capacity checks for bookings. The default implementation goes straight to
+ * MongoDB, the in-memory ledger can be switched on with inventory.ledger.enabled.
+ */
+public interface TicketInventory {
+
+    /**
+     * @return true if {@code count} tickets were taken for the event
+     */
+    boolean reserve(String eventId, int count);
+
+    void release(String eventId, int count);
+
+    /**
+     * Runs {@code freed}, the database write that frees the tickets (a cancelled
+     * booking, a deleted hold), and gives them back only if it returns true.
+     *
+     * @return the result of {@code freed}
+     */
+    boolean releaseAfter(String eventId, int count, BooleanSupplier freed);
+
+    void adjustCapacity(String eventId, int delta);
+}
@@ -0,0 +1,98 @@
+package com.eventure.events.Services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel. Scheduling and cancelling are O(1) and each call to
+ * {@link #advance(long)} only looks at the slots of the ticks that elapsed, so
+ * the cost of sweeping does not depend on how many timeouts are open.
+ *
+ * Any thread may schedule or cancel, {@link #advance(long)} must be driven by a
+ * single thread. A timeout normally fires at most one tick late (a schedule
+ * racing the sweep of its own slot waits one more revolution).
+ */
+public class TimingWheel<T> {
+
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<Timeout<T>>[] slots;
+    private volatile long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.slots = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = startMillis / tickMillis;
+    }
+
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        // Round up so an item never fires before its deadline
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, lastTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, tick);
+        slots[(int) (tick & mask)].add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns the items whose
+     * deadline passed and that were not cancelled.
+     */
+    public List<T> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        long from = lastTick + 1;
+        // After a long pause one pass over the wheel covers every slot
+        long to = Math.min(nowTick, from + mask);
+        for (long tick = from; tick <= to; tick++) {
+            Iterator<Timeout<T>> it = slots[(int) (tick & mask)].iterator();
+            while (it.hasNext()) {
+                Timeout<T> timeout = it.next();
+                if (timeout.isCancelled()) {
+                    it.remove();
+                } else if (timeout.deadlineTick <= nowTick) {
+                    it.remove();
+                    expired.add(timeout.getItem());
+                }
+            }
+        }
+        if (nowTick > lastTick) {
+            lastTick = nowTick;
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,171 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.repository.EventRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Upcoming events feed served as ready-made JSON bytes. Each event is serialized
+ * once and kept in date order; a change to an event only re-serializes that
+ * event, and the array is glued back together on the next read. Events drop out
+ * of the feed as soon as their start time has passed. Entries are summaries, the
+ * banner image is fetched separately from /api/images/{imageId}/{variant}.
+ * Events changed through another instance publish no local EventChangedEvent, so
+ * the whole feed is also reloaded from Mongo every feed.full-rebuild-ms.
+ */
+@Service
+public class UpcomingEventsFeed {
+    private static final Logger logger = LoggerFactory.getLogger(UpcomingEventsFeed.class);
+
+    private static final class Key {
+        private final LocalDateTime eventDateTime;
+        private final String id;
+
+        private Key(LocalDateTime eventDateTime, String id) {
+            this.eventDateTime = eventDateTime;
+            this.id = id;
+        }
+    }
+
+    public static final class Feed {
+        private final byte[] body;
+        private final String etag;
+
+        private Feed(byte[] body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+
+        public byte[] getBody() { return body; }
+        public String getEtag() { return etag; }
+    }
+
+    private static final Comparator<Key> ORDER = Comparator
+            .comparing((Key k) -> k.eventDateTime)
+            .thenComparing(k -> k.id);
+
+    private final EventRepo eventRepo;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentSkipListMap<Key, byte[]> entries = new ConcurrentSkipListMap<>(ORDER);
+    private final Map<String, Key> keys = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile Feed feed;
+
+    @Autowired
+    public UpcomingEventsFeed(EventRepo eventRepo, ObjectMapper objectMapper) {
+        this.eventRepo = eventRepo;
+        this.objectMapper = objectMapper;
+    }
+
+    public Feed getFeed() {
+        Feed current = feed;
+        if (current != null && dirty.isEmpty() && !hasExpired(LocalDateTime.now())) {
+            return current;
+        }
+        return rebuild(false);
+    }
+
+    @EventListener
+    public void onEventChanged(EventChangedEvent change) {
+        dirty.add(change.getEventId());
+    }
+
+    @Scheduled(fixedDelayString = "${feed.full-rebuild-ms:60000}")
+    public void reload() {
+        if (feed != null) {
+            rebuild(true);
+        }
+    }
+
+    private synchronized Feed rebuild(boolean full) {
+        LocalDateTime now = LocalDateTime.now();
+        if (full || feed == null) {
+            // Cleared before the query, so a change published while it runs stays
+            // dirty and is applied again on the next read
+            dirty.clear();
+            List<EventSummary> upcoming = eventRepo.findUpcomingSummaries(now);
+            entries.clear();
+            keys.clear();
+            upcoming.forEach(this::put);
+        } else {
+            for (String eventId : dirty.toArray(new String[0])) {
+                dirty.remove(eventId);
+                remove(eventId);
+                eventRepo.findSummaryById(eventId)
+                        .filter(event -> event.getEventDateTime() != null && event.getEventDateTime().isAfter(now))
+                        .ifPresent(this::put);
+            }
+        }
+        while (hasExpired(now)) {
+            Key first = entries.firstKey();
+            entries.remove(first);
+            keys.remove(first.id, first);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        boolean firstEntry = true;
+        for (byte[] entry : entries.values()) {
+            if (!firstEntry) {
+                out.write(',');
+            }
+            out.writeBytes(entry);
+            firstEntry = false;
+        }
+        out.write(']');
+        byte[] body = out.toByteArray();
+        // Hashed once per rebuild, polling clients revalidate against it
+        feed = new Feed(body, "\"" + HexFormat.of().formatHex(sha256(body), 0, 16) + "\"");
+        return feed;
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean hasExpired(LocalDateTime now) {
+        Map.Entry<Key, byte[]> first = entries.firstEntry();
+        return first != null && !first.getKey().eventDateTime.isAfter(now);
+    }
+
+    private void put(EventSummary event) {
+        try {
+            Key key = new Key(event.getEventDateTime(), event.getId());
+            entries.put(key, objectMapper.writeValueAsBytes(event));
+            keys.put(event.getId(), key);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize event {} for the feed: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    private void remove(String eventId) {
+        Key key = keys.remove(eventId);
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+}
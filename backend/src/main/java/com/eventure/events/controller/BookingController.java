@@ -1,30 +1,40 @@
 package com.eventure.events.controller;
 
 import com.eventure.events.Services.BookingService;
+import com.eventure.events.Services.IdempotencyService;
 import com.eventure.events.dto.BookingRequest;
 import com.eventure.events.dto.BookingResponse;
 import com.eventure.events.dto.CancelBookingRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.MediaType;
-import java.io.IOException;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping(value = "/api")
 public class BookingController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, IdempotencyService idempotencyService) {
         this.bookingService = bookingService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/bookEvent")
-    public ResponseEntity<BookingResponse> bookEvent(@RequestBody BookingRequest request) {
-        BookingResponse response = bookingService.bookEvent(request);
+    public ResponseEntity<BookingResponse> bookEvent(@RequestBody BookingRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        BookingResponse response = idempotencyService.execute("bookEvent:" + request.getUserId(), idempotencyKey, request,
+                BookingResponse.class, () -> bookingService.bookEvent(request));
         return ResponseEntity.ok(response);
     }
 
@@ -37,26 +47,37 @@ public class BookingController {
     }*/
 
     @PostMapping("/cancelBooking")
-    public ResponseEntity<String> cancelBooking(@RequestBody CancelBookingRequest request) {
-        String message = bookingService.cancelBooking(request.getBookingId(), request.getUserId());
+    public ResponseEntity<String> cancelBooking(@RequestBody CancelBookingRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        String message = idempotencyService.execute("cancelBooking:" + request.getUserId(), idempotencyKey, request,
+                String.class, () -> bookingService.cancelBooking(request.getBookingId(), request.getUserId()));
         return ResponseEntity.ok(message);
     }
 
     @GetMapping("/getBookingDetails")
-    public ResponseEntity<BookingResponse> getBookingDetails(@RequestParam String bookingId, @RequestParam String userId) {
+    public ResponseEntity<BookingResponse> getBookingDetails(@RequestParam String bookingId, @RequestParam String userId,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Polling clients: check versions before rebuilding the response and its QR codes
+        if (ifNoneMatch != null) {
+            String etag = bookingService.getBookingEtag(bookingId, userId);
+            if (Etags.matches(ifNoneMatch, etag)) {
+                return Etags.notModified(etag, null);
+            }
+        }
         BookingResponse response = bookingService.getBookingDetailsWithQrCodes(bookingId, userId);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(BookingService.etag(response)).body(response);
     }
 
     @GetMapping("/booking/{bookingId}/generatePdf")
-    public ResponseEntity<ByteArrayResource> generatePdf(
+    public ResponseEntity<StreamingResponseBody> generatePdf(
         @PathVariable String bookingId,
-        @RequestParam String requestingUserId
-    ) throws IOException {
-        ByteArrayResource resource = bookingService.generatePdf(bookingId, requestingUserId);
+        @RequestParam String requestingUserId,
+        HttpServletRequest request
+    ) {
+        StreamingResponseBody body = bookingService.generatePdf(bookingId, requestingUserId, WebAsyncUtils.getAsyncManager(request));
         return ResponseEntity.ok()
             .contentType(MediaType.APPLICATION_PDF)
-            .body(resource);
+            .body(body);
     }
 
 }
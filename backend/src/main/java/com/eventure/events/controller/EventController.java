@@ -1,17 +1,33 @@
 package com.eventure.events.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.eventure.events.Services.AvailabilityStreamService;
+import com.eventure.events.Services.EventSearchIndex;
 import com.eventure.events.Services.EventServices;
+import com.eventure.events.Services.EventSuggester;
+import com.eventure.events.Services.UpcomingEventsFeed;
 import com.eventure.events.model.Events;
 import com.eventure.events.dto.EventUpdateRequest;
 import com.eventure.events.dto.EventByUserResponse;
+import com.eventure.events.dto.EventFilter;
+import com.eventure.events.dto.EventPage;
+import com.eventure.events.dto.EventSearchResponse;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.NearbyEvent;
+import com.eventure.events.dto.Suggestion;
+import com.eventure.events.exception.MyException;
 
 @RestController
 @RequestMapping(value = "/api/events")
@@ -20,6 +36,18 @@ public class EventController {
     @Autowired
     private EventServices eventService;
 
+    @Autowired
+    private UpcomingEventsFeed upcomingEventsFeed;
+
+    @Autowired
+    private AvailabilityStreamService availabilityStreamService;
+
+    @Autowired
+    private EventSearchIndex eventSearchIndex;
+
+    @Autowired
+    private EventSuggester eventSuggester;
+
     @PreAuthorize("hasRole('MANAGER')")
     @PostMapping("/createEvent")
     public ResponseEntity<Events> createEvent(@RequestBody Events event) {
@@ -28,14 +56,86 @@ public class EventController {
     }
 
     @GetMapping
-    public List<Events> getAllEvents() {
-        return eventService.getAllEvents();
+    public ResponseEntity<byte[]> getAllEvents(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Pre-serialized, see UpcomingEventsFeed
+        UpcomingEventsFeed.Feed feed = upcomingEventsFeed.getFeed();
+        if (Etags.matches(ifNoneMatch, feed.getEtag())) {
+            return Etags.notModified(feed.getEtag(), null);
+        }
+        return ResponseEntity.ok()
+                .eTag(feed.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(feed.getBody());
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<EventPage<EventSummary>> getEventsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) Float minPrice,
+            @RequestParam(required = false) Float maxPrice) {
+        EventFilter filter = EventFilter.builder()
+                .category(category)
+                .city(city)
+                .state(state)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .startsAfter(LocalDateTime.now())
+                .build();
+        return ResponseEntity.ok(eventService.getEventsPage(filter, cursor, limit));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<EventSearchResponse> searchEvents(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        // Upcoming events unless a range is given
+        if (from == null && to == null) {
+            from = LocalDateTime.now();
+        }
+        return ResponseEntity.ok(eventSearchIndex.search(q, category, city, from, to, page, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(@RequestParam String q, @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(eventSuggester.suggest(q, Math.min(limit, 20)));
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyEvent>> getNearbyEvents(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "25") double radiusKm,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(eventService.getNearbyEvents(lat, lng, radiusKm, page, size));
     }
 
     @GetMapping("/{event_id}")
-    public ResponseEntity<Events> getEventById(@PathVariable String event_id) {
+    public ResponseEntity<Events> getEventById(@PathVariable String event_id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = eventService.getEventEtag(event_id);
+            if (Etags.matches(ifNoneMatch, etag)) {
+                return Etags.notModified(etag, null);
+            }
+        }
         Optional<Events> event = eventService.getEventById(event_id);
-        return event.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return event.map(e -> ResponseEntity.ok().eTag(EventServices.etag(e)).body(e))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{event_id}/availability", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(@PathVariable String event_id) {
+        return availabilityStreamService.subscribe(event_id);
     }
 
     @GetMapping("/byUser")
@@ -44,12 +144,32 @@ public class EventController {
         return ResponseEntity.ok(userEvents);
     }
 
+    @GetMapping(value = "/byUser", params = "limit")
+    public ResponseEntity<EventPage<EventByUserResponse>> getEventsByUserIdPage(
+            @RequestParam String userId,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(eventService.getEventsByUserIdPage(userId, cursor, limit));
+    }
+
     @GetMapping("/byorganizer")
-    public ResponseEntity<List<Events>> getOrganizerEventsList(@RequestParam String organizerId) {
-        List<Events> organizerEventsList = eventService.getOrganizerEventsList(organizerId);
+    public ResponseEntity<List<EventSummary>> getOrganizerEventsList(@RequestParam String organizerId) {
+        List<EventSummary> organizerEventsList = eventService.getOrganizerEventsList(organizerId);
         return ResponseEntity.ok(organizerEventsList);
     }
 
+    @GetMapping(value = "/byorganizer", params = "limit")
+    public ResponseEntity<EventPage<EventSummary>> getOrganizerEventsPage(
+            @RequestParam String organizerId,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        if (organizerId.isEmpty()) {
+            throw new MyException("Organizer ID must not be empty");
+        }
+        EventFilter filter = EventFilter.builder().organizerId(organizerId).build();
+        return ResponseEntity.ok(eventService.getEventsPage(filter, cursor, limit));
+    }
+
     @PutMapping("/{event_id}")
     public ResponseEntity<Events> updateEvent(@PathVariable String event_id, @RequestBody EventUpdateRequest updateRequest, @RequestParam String userId) {
         Events updated = eventService.updateEvent(event_id, updateRequest, userId);
@@ -0,0 +1,54 @@
+package com.eventure.events.controller;
+
+import com.eventure.events.Services.EventImageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping(value = "/api/images")
+public class ImageController {
+
+    // Image ids are content hashes, so a URL always serves the same bytes
+    private static final String CACHE_FOREVER = "public, max-age=31536000, immutable";
+
+    private final EventImageService eventImageService;
+
+    @Autowired
+    public ImageController(EventImageService eventImageService) {
+        this.eventImageService = eventImageService;
+    }
+
+    @GetMapping("/{imageId}/{variant}")
+    public ResponseEntity<InputStreamResource> getImage(@PathVariable String imageId, @PathVariable String variant,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws IOException {
+        if (!imageId.matches("[0-9a-f]{64}") || !EventImageService.VARIANTS.contains(variant)) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"" + imageId + "-" + variant + "\"";
+        if (Etags.matches(ifNoneMatch, etag)) {
+            return Etags.notModified(etag, CACHE_FOREVER);
+        }
+        GridFsResource image = eventImageService.find(imageId, variant);
+        if (image == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Files stored before uploads were checked may carry any type, only image types are served as such
+        String contentType = image.getContentType();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER)
+                .header("X-Content-Type-Options", "nosniff")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
+                .contentType(EventImageService.CONTENT_TYPES.contains(contentType)
+                        ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(image.contentLength())
+                .body(new InputStreamResource(image.getInputStream()));
+    }
+}
@@ -1,8 +1,10 @@
 package com.eventure.events.controller;
 
 import com.eventure.events.Services.PaymentService;
+import com.eventure.events.Services.TicketHoldService;
 import com.eventure.events.dto.PaymentRequest;
 import com.eventure.events.dto.PaymentResponse;
+import com.eventure.events.model.TicketHold;
 
 import jakarta.validation.Valid;
 
@@ -18,6 +20,9 @@ public class PaymentController {
     @Autowired
     private PaymentService payPalService;
 
+    @Autowired
+    private TicketHoldService ticketHoldService;
+
     @PostMapping("/create-payment")
     public ResponseEntity<PaymentResponse> createPayment(@RequestBody @Valid PaymentRequest request, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
@@ -29,7 +34,30 @@ public class PaymentController {
                 .body(new PaymentResponse("error", errorMessage, "VALIDATION_ERROR", null));
         }
 
-        PaymentResponse response = payPalService.createPayment(request.getAmount());
+        // Hold the tickets first so a sold out event fails before the user pays
+        TicketHold hold = null;
+        if (request.getEventId() != null) {
+            hold = ticketHoldService.createHold(request.getEventId(), request.getUserId(), request.getTicketCount());
+        }
+
+        PaymentResponse response;
+        try {
+            response = payPalService.createPayment(request.getAmount());
+        } catch (RuntimeException e) {
+            // Do not keep the tickets locked until the hold expires
+            if (hold != null) {
+                ticketHoldService.releaseHold(hold.getId());
+            }
+            throw e;
+        }
+        if (hold != null) {
+            if ("success".equals(response.getStatus())) {
+                response.setHoldId(hold.getId());
+                response.setHoldExpiresAt(hold.getExpiresAt());
+            } else {
+                ticketHoldService.releaseHold(hold.getId());
+            }
+        }
         return ResponseEntity.ok(response);
     }
 }
@@ -0,0 +1,30 @@
+package com.eventure.events.controller;
+
+import com.eventure.events.Services.AdmissionQueueService;
+import com.eventure.events.dto.QueueJoinRequest;
+import com.eventure.events.dto.QueueStatusResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(value = "/api/queue")
+public class QueueController {
+
+    private final AdmissionQueueService admissionQueueService;
+
+    @Autowired
+    public QueueController(AdmissionQueueService admissionQueueService) {
+        this.admissionQueueService = admissionQueueService;
+    }
+
+    @PostMapping("/{eventId}/join")
+    public ResponseEntity<QueueStatusResponse> join(@PathVariable String eventId, @RequestBody QueueJoinRequest request) {
+        return ResponseEntity.ok(admissionQueueService.join(eventId, request.getUserId()));
+    }
+
+    @GetMapping("/{eventId}/status")
+    public ResponseEntity<QueueStatusResponse> getStatus(@PathVariable String eventId, @RequestParam String token) {
+        return ResponseEntity.ok(admissionQueueService.getStatus(eventId, token));
+    }
+}
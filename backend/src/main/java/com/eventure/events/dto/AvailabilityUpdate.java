@@ -0,0 +1,16 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Pushed on /api/events/{id}/availability, field names match Events
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityUpdate {
+    private String eventId;
+    private int available_tickets;
+    private int eventCapacity;
+    private int eventAttendees;
+}
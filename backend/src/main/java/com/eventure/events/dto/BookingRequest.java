@@ -8,6 +8,7 @@ public class BookingRequest {
     private double ticketPrice;
     private double totalTicketPrice;
     private boolean paymentStatus;  // true if payment is successful
+    private String holdId;          // set when tickets were held at checkout
 
     // Getters and setters (or use Lombok @Data for brevity)
     public String getUserId() {
@@ -57,5 +58,12 @@ public class BookingRequest {
     public void setPaymentStatus(boolean paymentStatus) {
         this.paymentStatus = paymentStatus;
     }
-}
 
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+}
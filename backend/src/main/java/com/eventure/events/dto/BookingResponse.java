@@ -11,9 +11,17 @@ public class BookingResponse {
     private String bookingStatus;
     private BookingDetails booking;
     private Users user;
-    private Events event;
+    private EventSummary event;
+
+    // Used by Jackson when a stored response is replayed for an Idempotency-Key
+    private BookingResponse() {
+    }
 
     public BookingResponse(BookingDetails booking, Users user, Events event) {
+        this(booking, user, EventSummary.from(event));
+    }
+
+    public BookingResponse(BookingDetails booking, Users user, EventSummary event) {
         this.bookingId = booking.getId();
         this.ticketCount = booking.getTicketCount();
         this.totalTicketPrice = booking.getTotalTicketPrice();
@@ -29,5 +37,5 @@ public class BookingResponse {
     public String getBookingStatus() { return bookingStatus; }
     public BookingDetails getBooking() { return booking; }
     public Users getUser() { return user; }
-    public Events getEvent() { return event; }
+    public EventSummary getEvent() { return event; }
 }
@@ -1,7 +1,6 @@
 package com.eventure.events.dto;
 
 import com.eventure.events.model.BookingDetails;
-import com.eventure.events.model.Events;
 import com.eventure.events.model.Users;
 import lombok.*;
 
@@ -11,5 +10,5 @@ import lombok.*;
 @NoArgsConstructor
 public class EventByUserResponse {
     private BookingDetails booking;
-    private Events event;
+    private EventSummary event;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Server side filters for paged event listings. Null fields are not applied.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventFilter {
+    private String organizerId;
+    private String category;
+    private String city;
+    private String state;
+    private Float minPrice;
+    private Float maxPrice;
+    private LocalDateTime startsAfter;
+}
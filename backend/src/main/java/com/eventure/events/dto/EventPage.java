@@ -0,0 +1,15 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPage<T> {
+    private List<T> items;
+    private String nextCursor;   // null on the last page
+}
@@ -0,0 +1,19 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventSearchResponse {
+    private List<EventSummary> items;
+    private int total;
+    // Counts over the text and date matches, before the category/city filters
+    private Map<String, Integer> categories;
+    private Map<String, Integer> cities;
+}
@@ -0,0 +1,65 @@
+package com.eventure.events.dto;
+
+import com.eventure.events.model.Events;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * What list views need from an event. Leaves out the instructions, which are
+ * only loaded for the detail view.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventSummary {
+    // Mongo field names read by the summary projections
+    public static final String[] FIELDS = {
+            "eventName", "desc", "organizerId", "eventCapacity", "available_tickets", "ticketPrice",
+            "eventDateTime", "location", "city", "state", "zipCode", "address", "eventCategory", "eventAttendees", "imageId", "version"
+    };
+
+    private String id;
+    private String eventName;
+    private String desc;
+    private String organizerId;
+    private int eventCapacity;
+    private int available_tickets;
+    private float ticketPrice;
+    private LocalDateTime eventDateTime;
+    private Location location;
+    private String city;
+    private String state;
+    private String zipCode;
+    private String address;
+    private String eventCategory;
+    private int eventAttendees;
+    private String imageId;
+    private long version;
+
+    public static EventSummary from(Events event) {
+        if (event == null) {
+            return null;
+        }
+        return EventSummary.builder()
+                .id(event.getId())
+                .eventName(event.getEventName())
+                .desc(event.getDesc())
+                .organizerId(event.getOrganizerId())
+                .eventCapacity(event.getEventCapacity())
+                .available_tickets(event.getAvailable_tickets())
+                .ticketPrice(event.getTicketPrice())
+                .eventDateTime(event.getEventDateTime())
+                .location(event.getLocation())
+                .city(event.getCity())
+                .state(event.getState())
+                .zipCode(event.getZipCode())
+                .address(event.getAddress())
+                .eventCategory(event.getEventCategory())
+                .eventAttendees(event.getEventAttendees())
+                .imageId(event.getImageId())
+                .version(event.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryDelta {
+    private String eventId;
+    // Written to the event as ledgerSeq, a retried delta that already landed matches nothing
+    private long sequence;
+    private int capacityDelta;
+    private int availableDelta;
+    private int attendeesDelta;
+}
@@ -0,0 +1,13 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyEvent {
+    private EventSummary event;
+    private double distanceKm;
+}
@@ -0,0 +1,48 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Side effect of a booking write (currently an email) stored inside the
+ * BookingDetails document itself, so it is recorded by the same single-document
+ * write as the booking change. OutboxDispatcher sends it later.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    public static final String BOOKING_CONFIRMATION = "BOOKING_CONFIRMATION";
+    public static final String BOOKING_CANCELLATION = "BOOKING_CANCELLATION";
+
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    private String id;
+    private String type;
+    private String status;
+    private int attempts;
+    private Date createdAt;
+    private Date nextAttemptAt;   // for SENDING this is when the worker lease runs out
+    private String claimToken;
+    private String lastError;
+
+    public static OutboxMessage pending(String type) {
+        Date now = new Date();
+        return OutboxMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .status(PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
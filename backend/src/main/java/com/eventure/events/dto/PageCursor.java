@@ -0,0 +1,44 @@
+package com.eventure.events.dto;
+
+import com.eventure.events.exception.MyException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in an event listing, the (eventDateTime, id) of the last
+ * event of a page. Clients only see it as an opaque token. The date is null when
+ * the last row has none, like bookings the createdAt backfill has not reached.
+ */
+public class PageCursor {
+    private final LocalDateTime eventDateTime;
+    private final String id;
+
+    public PageCursor(LocalDateTime eventDateTime, String id) {
+        this.eventDateTime = eventDateTime;
+        this.id = id;
+    }
+
+    public LocalDateTime getEventDateTime() { return eventDateTime; }
+    public String getId() { return id; }
+
+    public String encode() {
+        String raw = eventDateTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf('|');
+            String date = raw.substring(0, split);
+            return new PageCursor("null".equals(date) ? null : LocalDateTime.parse(date), raw.substring(split + 1));
+        } catch (RuntimeException e) {
+            throw new MyException("Invalid page cursor.");
+        }
+    }
+}
@@ -6,6 +6,11 @@ public class PaymentRequest {
     @NotBlank(message = "Amount is required")
     private String amount;
 
+    // Optional, when set the tickets are held for the duration of the checkout
+    private String eventId;
+    private String userId;
+    private int ticketCount;
+
     public String getAmount() {
         return amount;
     }
@@ -13,4 +18,28 @@ public class PaymentRequest {
     public void setAmount(String amount) {
         this.amount = amount;
     }
-} 
\ No newline at end of file
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public int getTicketCount() {
+        return ticketCount;
+    }
+
+    public void setTicketCount(int ticketCount) {
+        this.ticketCount = ticketCount;
+    }
+}
@@ -1,10 +1,14 @@
 package com.eventure.events.dto;
 
+import java.time.LocalDateTime;
+
 public class PaymentResponse {
     private String status;
     private String message;
     private String approvalUrl;
     private String errorCode;
+    private String holdId;
+    private LocalDateTime holdExpiresAt;
 
     public PaymentResponse(String status, String message) {
         this.status = status;
@@ -56,4 +60,20 @@ public class PaymentResponse {
     public void setErrorCode(String errorCode) {
         this.errorCode = errorCode;
     }
-} 
\ No newline at end of file
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+}
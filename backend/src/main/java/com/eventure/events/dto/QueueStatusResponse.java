@@ -0,0 +1,16 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueStatusResponse {
+    private String token;
+    private String eventId;
+    private long position;    // people ahead in the queue, 0 once admitted
+    private boolean admitted;
+    private boolean soldOut;
+}
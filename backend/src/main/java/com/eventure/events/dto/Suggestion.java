@@ -0,0 +1,18 @@
+package com.eventure.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+    public static final String EVENT = "EVENT";
+    public static final String CITY = "CITY";
+    public static final String CATEGORY = "CATEGORY";
+
+    private String text;
+    private String type;
+    private int count;      // events behind the suggestion, used for ranking
+}
@@ -1,5 +1,6 @@
 package com.eventure.events.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,4 +21,24 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
 	}
 
+	@ExceptionHandler(IdempotencyKeyReusedException.class)
+	public ResponseEntity<?> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+		Map<String, Object> error = new HashMap<>();
+		error.put("message", ex.getMessage());
+		error.put("timestamp", new Date());
+		error.put("status", 422);
+		return new ResponseEntity<>(error, HttpStatus.UNPROCESSABLE_ENTITY);
+	}
+
+	@ExceptionHandler(RenderBusyException.class)
+	public ResponseEntity<?> handleRenderBusy(RenderBusyException ex) {
+		Map<String, Object> error = new HashMap<>();
+		error.put("message", ex.getMessage());
+		error.put("timestamp", new Date());
+		error.put("status", 503);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(error);
+	}
+
 }
@@ -0,0 +1,14 @@
+package com.eventure.events.exception;
+
+public class RenderBusyException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public RenderBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
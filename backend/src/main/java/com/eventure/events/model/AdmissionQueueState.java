@@ -0,0 +1,17 @@
+package com.eventure.events.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "AdmissionQueues")
+public class AdmissionQueueState {
+    @Id
+    private String eventId;
+    private long nextSeq;
+    private long admittedUpTo;
+}
@@ -1,9 +1,13 @@
 package com.eventure.events.model;
 
+import com.eventure.events.dto.OutboxMessage;
 import com.eventure.events.dto.Ticket;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Builder
@@ -11,13 +15,34 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "BookingDetails")
+@CompoundIndex(name = "event_status", def = "{'eventId': 1, 'bookingStatus': 1}")
+@CompoundIndex(name = "user_status_created", def = "{'userId': 1, 'bookingStatus': 1, 'createdAt': -1}")
+@CompoundIndex(name = "outbox_status_next_attempt", def = "{'outbox.status': 1, 'outbox.nextAttemptAt': 1}")
 public class BookingDetails {
     @Id
     private String id;
     private String userId;
+    private String eventId;
+    private LocalDateTime createdAt;
     private int ticketCount;
     private double totalTicketPrice;
     private List<Ticket> tickets;
     private String bookingStatus;
+    @JsonIgnore
+    private List<OutboxMessage> outbox;
+    // Bumped by writes that change what clients see (not by outbox bookkeeping), used for ETags
+    private long version;
+
+    // Bookings written before eventId was stored only carry it on their tickets,
+    // until BookingBackfillMigration has reached them
+    public String resolveEventId() {
+        if (eventId != null) {
+            return eventId;
+        }
+        if (tickets != null && !tickets.isEmpty()) {
+            return tickets.get(0).getEventId();
+        }
+        return null;
+    }
 }
 
@@ -1,7 +1,11 @@
 package com.eventure.events.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.eventure.events.dto.Location;
@@ -10,6 +14,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "EventDetails")
+@CompoundIndex(name = "date_id", def = "{'eventDateTime': 1, '_id': 1}")
+@CompoundIndex(name = "category_date_id", def = "{'eventCategory': 1, 'eventDateTime': 1, '_id': 1}")
+@CompoundIndex(name = "city_date_id", def = "{'city': 1, 'eventDateTime': 1, '_id': 1}")
+@CompoundIndex(name = "state_date_id", def = "{'state': 1, 'eventDateTime': 1, '_id': 1}")
+@CompoundIndex(name = "organizer_date_id", def = "{'organizerId': 1, 'eventDateTime': 1, '_id': 1}")
+@CompoundIndex(name = "geo_date", def = "{'geo': '2dsphere', 'eventDateTime': 1}")
 @Data
 @Builder
 @AllArgsConstructor
@@ -25,6 +35,9 @@ public class Events{
     private float ticketPrice;
     private LocalDateTime eventDateTime;
     private Location location;
+    // GeoJSON copy of location for $geoNear, written together with it
+    @JsonIgnore
+    private GeoJsonPoint geo;
     private String city;
     private String state;
     private String zipCode;
@@ -32,5 +45,10 @@ public class Events{
     private String eventInstruction;
     private String eventCategory;
     private int eventAttendees;
+    // Upload only, the image is moved to EventImageService and imageId points to it
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String eventImageBase64;
+    private String imageId;
+    // Bumped by every write in EventRepoCustomImpl, used for ETags
+    private long version;
 }
@@ -0,0 +1,24 @@
+package com.eventure.events.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "GeocodeCache")
+public class GeocodeCacheEntry {
+    @Id
+    private String id;          // normalized address, see GeocodingService.normalize
+    private boolean found;
+    private double latitude;
+    private double longitude;
+    private Date resolvedAt;
+    @Indexed(expireAfterSeconds = 0)
+    private Date expiresAt;     // only set on misses, found addresses are kept
+}
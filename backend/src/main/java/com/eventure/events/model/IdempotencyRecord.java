@@ -0,0 +1,26 @@
+package com.eventure.events.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "IdempotencyKeys")
+public class IdempotencyRecord {
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    private String id;          // scope + ":" + Idempotency-Key header, unique through _id
+    private String status;
+    private String requestHash; // SHA-256 of the request body the key was first used with
+    private String responseJson;
+    @Indexed(expireAfterSeconds = 86400)
+    private Date createdAt;
+}
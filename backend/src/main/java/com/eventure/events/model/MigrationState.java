@@ -0,0 +1,22 @@
+package com.eventure.events.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "Migrations")
+public class MigrationState {
+    @Id
+    private String id;
+    private String lastProcessedId;
+    private long processed;
+    private long skipped;
+    private boolean done;
+    private Date updatedAt;
+}
@@ -0,0 +1,21 @@
+package com.eventure.events.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "QrCodes")
+public class QrCodeImage {
+    @Id
+    private String id;          // width + "x" + height + ":" + content
+    private byte[] png;
+    @Indexed(expireAfterSeconds = 2592000)
+    private Date createdAt;
+}
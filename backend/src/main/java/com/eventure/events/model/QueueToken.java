@@ -0,0 +1,19 @@
+package com.eventure.events.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "QueueTokens")
+public class QueueToken {
+    @Id
+    private String token;
+    private String eventId;
+    private String userId;
+    private long seq;
+    private long issuedAt;
+}
@@ -0,0 +1,21 @@
+package com.eventure.events.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "TicketHolds")
+public class TicketHold {
+    @Id
+    private String id;
+    private String eventId;
+    private String userId;
+    private int ticketCount;
+    private LocalDateTime expiresAt;
+}
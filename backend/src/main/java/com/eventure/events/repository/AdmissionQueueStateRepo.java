@@ -0,0 +1,7 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.AdmissionQueueState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface AdmissionQueueStateRepo extends MongoRepository<AdmissionQueueState, String> {
+}
@@ -2,10 +2,17 @@ package com.eventure.events.repository;
 
 import com.eventure.events.model.BookingDetails;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 
-public interface BookingRepo extends MongoRepository<BookingDetails, String> {
+public interface BookingRepo extends MongoRepository<BookingDetails, String>, BookingRepoCustom {
+    @Query(fields = "{ 'outbox': 0 }")
     List<BookingDetails> findByUserIdAndBookingStatus(String userId, String bookingStatus);
+
+    // Owner, event and version only, for the ETag of getBookingDetails
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'userId': 1, 'eventId': 1, 'tickets.eventId': 1, 'version': 1 }")
+    Optional<BookingDetails> findVersionById(String id);
 }
\ No newline at end of file
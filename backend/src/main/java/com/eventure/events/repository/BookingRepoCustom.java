@@ -0,0 +1,73 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.dto.OutboxMessage;
+import com.eventure.events.dto.PageCursor;
+import com.eventure.events.model.BookingDetails;
+
+import java.util.Date;
+import java.util.List;
+
+public interface BookingRepoCustom {
+
+    /**
+     * Flips the booking to CANCELLED unless it already is, and queues the
+     * notification in the same update.
+     *
+     * @return true only for the caller that actually performed the cancellation
+     */
+    boolean markCancelled(String bookingId, OutboxMessage notification);
+
+    /**
+     * Total ticketCount of the CONFIRMED bookings for an event.
+     */
+    int sumConfirmedTickets(String eventId);
+
+    /**
+     * Claims one outbox message that is due (or whose previous lease ran out) and
+     * marks it SENDING until {@code leaseUntil}.
+     *
+     * @return the booking with the claimed message tagged with {@code claimToken}, or null
+     */
+    BookingDetails claimOutboxMessage(String claimToken, Date now, Date leaseUntil);
+
+    void completeOutboxMessage(String bookingId, String messageId);
+
+    void retryOutboxMessage(String bookingId, String messageId, int attempts, Date nextAttemptAt, String error);
+
+    void failOutboxMessage(String bookingId, String messageId, int attempts, String error);
+
+    long countPendingOutboxMessages();
+
+    /**
+     * Next batch of bookings without a top level eventId, in _id order after
+     * {@code afterId}. Only _id and tickets.eventId are loaded.
+     */
+    List<BookingDetails> findBookingsMissingEventId(String afterId, int limit);
+
+    /**
+     * Copies the ticket eventId to the top level and derives createdAt from the
+     * ObjectId, in one unordered bulk write. Documents that already have an
+     * eventId are left alone.
+     *
+     * @return number of documents updated
+     */
+    int backfillEventIds(List<BookingDetails> bookings);
+
+    /**
+     * A user's bookings with the given status, newest first by (createdAt, id),
+     * continuing after {@code before} (null for the first page). The outbox is not loaded.
+     */
+    List<BookingDetails> findUserBookingsPage(String userId, String bookingStatus, PageCursor before, int limit);
+
+    /**
+     * Up to {@code limit} ticket IDs that appear on more than one ticket.
+     */
+    List<String> findDuplicateTicketIds(int limit);
+
+    /**
+     * Builds the unique ticket_id_unique index on tickets.ticketId. With a
+     * {@code issuedFrom} date only bookings created from then on are covered, so
+     * legacy duplicates do not stop the index from being built.
+     */
+    void ensureTicketIdIndex(Date issuedFrom);
+}
@@ -0,0 +1,191 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.dto.OutboxMessage;
+import com.eventure.events.dto.PageCursor;
+import com.eventure.events.model.BookingDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BookingRepoCustomImpl implements BookingRepoCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public BookingRepoCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean markCancelled(String bookingId, OutboxMessage notification) {
+        Query query = new Query(Criteria.where("id").is(bookingId).and("bookingStatus").ne("CANCELLED"));
+        Update update = new Update()
+                .set("bookingStatus", "CANCELLED")
+                .push("outbox", notification)
+                .inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, BookingDetails.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public int sumConfirmedTickets(String eventId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(forEvent(eventId).and("bookingStatus").is("CONFIRMED")),
+                Aggregation.group().sum("ticketCount").as("total"));
+        AggregationResults<Document> results = mongoTemplate.aggregate(aggregation, BookingDetails.class, Document.class);
+        Document result = results.getUniqueMappedResult();
+        return result == null ? 0 : ((Number) result.get("total")).intValue();
+    }
+
+    @Override
+    public BookingDetails claimOutboxMessage(String claimToken, Date now, Date leaseUntil) {
+        Query query = new Query(Criteria.where("outbox").elemMatch(
+                Criteria.where("status").in(Arrays.asList(OutboxMessage.PENDING, OutboxMessage.SENDING))
+                        .and("nextAttemptAt").lte(now)));
+        Update update = new Update()
+                .set("outbox.$.status", OutboxMessage.SENDING)
+                .set("outbox.$.nextAttemptAt", leaseUntil)
+                .set("outbox.$.claimToken", claimToken);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), BookingDetails.class);
+    }
+
+    @Override
+    public void completeOutboxMessage(String bookingId, String messageId) {
+        Update update = new Update()
+                .set("outbox.$.status", OutboxMessage.SENT)
+                .unset("outbox.$.claimToken");
+        mongoTemplate.updateFirst(outboxMessageQuery(bookingId, messageId), update, BookingDetails.class);
+    }
+
+    @Override
+    public void retryOutboxMessage(String bookingId, String messageId, int attempts, Date nextAttemptAt, String error) {
+        Update update = new Update()
+                .set("outbox.$.status", OutboxMessage.PENDING)
+                .set("outbox.$.attempts", attempts)
+                .set("outbox.$.nextAttemptAt", nextAttemptAt)
+                .set("outbox.$.lastError", error)
+                .unset("outbox.$.claimToken");
+        mongoTemplate.updateFirst(outboxMessageQuery(bookingId, messageId), update, BookingDetails.class);
+    }
+
+    @Override
+    public void failOutboxMessage(String bookingId, String messageId, int attempts, String error) {
+        Update update = new Update()
+                .set("outbox.$.status", OutboxMessage.FAILED)
+                .set("outbox.$.attempts", attempts)
+                .set("outbox.$.lastError", error)
+                .unset("outbox.$.claimToken");
+        mongoTemplate.updateFirst(outboxMessageQuery(bookingId, messageId), update, BookingDetails.class);
+    }
+
+    @Override
+    public long countPendingOutboxMessages() {
+        Query query = new Query(Criteria.where("outbox.status").in(Arrays.asList(OutboxMessage.PENDING, OutboxMessage.SENDING)));
+        return mongoTemplate.count(query, BookingDetails.class);
+    }
+
+    private static Query outboxMessageQuery(String bookingId, String messageId) {
+        return new Query(Criteria.where("id").is(bookingId).and("outbox.id").is(messageId));
+    }
+
+    @Override
+    public List<BookingDetails> findBookingsMissingEventId(String afterId, int limit) {
+        Criteria criteria = Criteria.where("eventId").exists(false);
+        if (afterId != null) {
+            criteria = criteria.and("id").gt(new ObjectId(afterId));
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+        query.fields().include("id").include("tickets.eventId");
+        return mongoTemplate.find(query, BookingDetails.class);
+    }
+
+    @Override
+    public int backfillEventIds(List<BookingDetails> bookings) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BookingDetails.class);
+        int queued = 0;
+        for (BookingDetails booking : bookings) {
+            String eventId = booking.resolveEventId();
+            if (eventId == null) {
+                continue;
+            }
+            Update update = new Update().set("eventId", eventId).inc("version", 1);
+            if (ObjectId.isValid(booking.getId())) {
+                Date created = new ObjectId(booking.getId()).getDate();
+                update.set("createdAt", LocalDateTime.ofInstant(created.toInstant(), ZoneId.systemDefault()));
+            }
+            bulk.updateOne(new Query(Criteria.where("id").is(booking.getId()).and("eventId").exists(false)), update);
+            queued++;
+        }
+        return queued == 0 ? 0 : bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public List<BookingDetails> findUserBookingsPage(String userId, String bookingStatus, PageCursor before, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId).and("bookingStatus").is(bookingStatus);
+        if (before != null && before.getEventDateTime() == null) {
+            // Bookings the backfill has not reached have no createdAt and sort after all others, by id
+            criteria = criteria.and("createdAt").is(null).and("id").lt(new ObjectId(before.getId()));
+        } else if (before != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(before.getEventDateTime()),
+                    Criteria.where("createdAt").is(before.getEventDateTime()).and("id").lt(new ObjectId(before.getId())),
+                    Criteria.where("createdAt").is(null));
+        }
+        // Served by the user_status_created index
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .limit(limit);
+        query.fields().exclude("outbox");
+        return mongoTemplate.find(query, BookingDetails.class);
+    }
+
+    @Override
+    public List<String> findDuplicateTicketIds(int limit) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.unwind("tickets"),
+                Aggregation.match(Criteria.where("tickets.ticketId").ne(null)),
+                Aggregation.group("tickets.ticketId").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)),
+                Aggregation.limit(limit))
+                .withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build());
+        return mongoTemplate.aggregate(aggregation, BookingDetails.class, Document.class).getMappedResults().stream()
+                .map(result -> result.getString("_id"))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void ensureTicketIdIndex(Date issuedFrom) {
+        Index index = new Index().on("tickets.ticketId", Sort.Direction.ASC).named("ticket_id_unique").unique();
+        if (issuedFrom == null) {
+            index.sparse();
+        } else {
+            // A partial index cannot also be sparse; bookings created since issuedFrom always carry tickets
+            index.partial(PartialIndexFilter.of(Criteria.where("createdAt").gte(issuedFrom)));
+        }
+        mongoTemplate.indexOps(BookingDetails.class).ensureIndex(index);
+    }
+
+    // Matches on the top level eventId, and on the tickets for bookings not backfilled yet
+    private static Criteria forEvent(String eventId) {
+        return new Criteria().orOperator(
+                Criteria.where("eventId").is(eventId),
+                Criteria.where("eventId").exists(false).and("tickets.eventId").is(eventId));
+    }
+}
@@ -1,14 +1,24 @@
 package com.eventure.events.repository;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.eventure.events.model.Events;
 import java.util.List;
+import java.util.Optional;
 import java.time.LocalDateTime;
 
 @Repository
-public interface EventRepo extends MongoRepository<Events, String> {
+public interface EventRepo extends MongoRepository<Events, String>, EventRepoCustom {
     List<Events> findByIdIn(List<String> ids);
     List<Events> findByOrganizerId(String organizerId); 
-    List<Events> findByEventDateTimeAfter(LocalDateTime dateTime); 
-}
\ No newline at end of file
+    List<Events> findByEventDateTimeAfter(LocalDateTime dateTime);
+
+    // Only loads the inventory counters, the rest of the document stays on the server
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'available_tickets': 1, 'eventAttendees': 1, 'eventCapacity': 1 }")
+    Optional<Events> findInventoryById(String id);
+
+    // Enough to build the ETag of the detail view
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'version': 1 }")
+    Optional<Events> findVersionById(String id);
+}
@@ -0,0 +1,98 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.dto.EventFilter;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.InventoryDelta;
+import com.eventure.events.dto.Location;
+import com.eventure.events.dto.NearbyEvent;
+import com.eventure.events.dto.PageCursor;
+import com.eventure.events.model.Events;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Inventory writes that have to happen as a single conditional update on the
+ * server instead of a findById/save round trip.
+ */
+public interface EventRepoCustom {
+
+    /**
+     * Takes {@code count} tickets if at least that many are still available and
+     * bumps eventAttendees in the same update.
+     *
+     * @return false if the event does not exist or does not have enough tickets left
+     */
+    boolean reserveTickets(String eventId, int count);
+
+    /**
+     * Gives {@code count} tickets back to the event (cancellation path).
+     *
+     * @return false if the event does not exist or has fewer attendees than {@code count}
+     */
+    boolean releaseTickets(String eventId, int count);
+
+    /**
+     * Moves eventCapacity and available_tickets by {@code delta}. available_tickets
+     * never drops below zero.
+     */
+    void adjustCapacity(String eventId, int delta);
+
+    /**
+     * Writes the organizer editable fields of the event without touching
+     * eventCapacity, available_tickets or eventAttendees.
+     */
+    void updateEventDetails(Events event);
+
+    /**
+     * Applies the write-behind deltas of the inventory ledger in one unordered bulk write.
+     */
+    void applyInventoryDeltas(List<InventoryDelta> deltas);
+
+    /**
+     * Overwrites available_tickets and eventAttendees, used when the ledger rebuilds
+     * an event from the booking collection.
+     */
+    void resetInventory(String eventId, int available, int attendees);
+
+    /**
+     * One page of events ordered by (eventDateTime, id), starting after
+     * {@code after} (null for the first page). Reads at most {@code limit} documents.
+     */
+    List<EventSummary> findPage(EventFilter filter, PageCursor after, int limit);
+
+    // Summary reads, the image is never sent over the wire for these
+    List<EventSummary> findUpcomingSummaries(LocalDateTime after);
+
+    List<EventSummary> findAllSummaries();
+
+    List<EventSummary> findSummariesByOrganizerId(String organizerId);
+
+    List<EventSummary> findSummariesByIdIn(Collection<String> ids);
+
+    Optional<EventSummary> findSummaryById(String id);
+
+    /**
+     * Sets the location, unless the address fields of the event no longer match
+     * {@code address} (the event was edited while the lookup ran).
+     *
+     * @return true if the event was updated
+     */
+    boolean updateLocation(Events address, Location location);
+
+    /**
+     * Upcoming events within {@code radiusKm} of the point, nearest first.
+     */
+    List<NearbyEvent> findNearby(double latitude, double longitude, double radiusKm, LocalDateTime after, int skip, int limit);
+
+    // Fills geo from location on events written before geo existed, returns the ids updated
+    List<String> backfillGeoPoints();
+
+    // Events still carrying an inline base64 image, ordered by id, for EventImageMigration
+    List<Events> findEventsWithInlineImage(String afterId, int limit);
+
+    // Points the event at its stored image and drops the inline copy
+    void replaceInlineImage(String eventId, String imageId);
+}
@@ -0,0 +1,272 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.dto.EventFilter;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.InventoryDelta;
+import com.eventure.events.dto.Location;
+import com.eventure.events.dto.NearbyEvent;
+import com.eventure.events.dto.PageCursor;
+import com.eventure.events.model.Events;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public class EventRepoCustomImpl implements EventRepoCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public EventRepoCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean reserveTickets(String eventId, int count) {
+        Query query = new Query(Criteria.where("id").is(eventId).and("available_tickets").gte(count));
+        Update update = new Update()
+                .inc("available_tickets", -count)
+                .inc("eventAttendees", count)
+                .inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, Events.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public boolean releaseTickets(String eventId, int count) {
+        Query query = new Query(Criteria.where("id").is(eventId).and("eventAttendees").gte(count));
+        Update update = new Update()
+                .inc("available_tickets", count)
+                .inc("eventAttendees", -count)
+                .inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, Events.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void adjustCapacity(String eventId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        // One pipeline update, shrinking below what is already sold clamps the remaining tickets to zero
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("eventCapacity").toValue(new Document("$add", List.of("$eventCapacity", delta)))
+                .set("available_tickets").toValue(new Document("$max",
+                        List.of(0, new Document("$add", List.of("$available_tickets", delta)))))
+                .set("version").toValue(new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0)), 1)));
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(eventId)), update, Events.class);
+    }
+
+    @Override
+    public void updateEventDetails(Events event) {
+        Query query = new Query(Criteria.where("id").is(event.getId()));
+        Update update = new Update()
+                .set("desc", event.getDesc())
+                .set("ticketPrice", event.getTicketPrice())
+                .set("eventDateTime", event.getEventDateTime())
+                .set("city", event.getCity())
+                .set("state", event.getState())
+                .set("zipCode", event.getZipCode())
+                .set("address", event.getAddress())
+                .set("eventInstruction", event.getEventInstruction())
+                .inc("version", 1);
+        mongoTemplate.updateFirst(query, update, Events.class);
+    }
+
+    @Override
+    public boolean updateLocation(Events address, Location location) {
+        Query query = new Query(Criteria.where("id").is(address.getId())
+                .and("address").is(address.getAddress())
+                .and("city").is(address.getCity())
+                .and("state").is(address.getState())
+                .and("zipCode").is(address.getZipCode()));
+        Update update = new Update()
+                .set("location", location)
+                .set("geo", new GeoJsonPoint(location.getLongitude(), location.getLatitude()))
+                .inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, Events.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void applyInventoryDeltas(List<InventoryDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Events.class);
+        for (InventoryDelta delta : deltas) {
+            Update update = new Update()
+                    .inc("eventCapacity", delta.getCapacityDelta())
+                    .inc("available_tickets", delta.getAvailableDelta())
+                    .inc("eventAttendees", delta.getAttendeesDelta())
+                    .inc("version", 1)
+                    .set("ledgerSeq", delta.getSequence());
+            bulk.updateOne(new Query(Criteria.where("id").is(delta.getEventId())
+                    .and("ledgerSeq").not().gte(delta.getSequence())), update);
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void resetInventory(String eventId, int available, int attendees) {
+        Query query = new Query(Criteria.where("id").is(eventId));
+        Update update = new Update()
+                .set("available_tickets", available)
+                .set("eventAttendees", attendees)
+                .inc("version", 1);
+        mongoTemplate.updateFirst(query, update, Events.class);
+    }
+
+    @Override
+    public List<EventSummary> findPage(EventFilter filter, PageCursor after, int limit) {
+        List<Criteria> clauses = new ArrayList<>();
+        if (filter.getOrganizerId() != null) {
+            clauses.add(Criteria.where("organizerId").is(filter.getOrganizerId()));
+        }
+        if (filter.getCategory() != null) {
+            clauses.add(Criteria.where("eventCategory").is(filter.getCategory()));
+        }
+        if (filter.getCity() != null) {
+            clauses.add(Criteria.where("city").is(filter.getCity()));
+        }
+        if (filter.getState() != null) {
+            clauses.add(Criteria.where("state").is(filter.getState()));
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            Criteria price = Criteria.where("ticketPrice");
+            if (filter.getMinPrice() != null) {
+                price = price.gte(filter.getMinPrice());
+            }
+            if (filter.getMaxPrice() != null) {
+                price = price.lte(filter.getMaxPrice());
+            }
+            clauses.add(price);
+        }
+        if (filter.getStartsAfter() != null) {
+            clauses.add(Criteria.where("eventDateTime").gt(filter.getStartsAfter()));
+        }
+        if (after != null) {
+            // Keyset: strictly after the last (eventDateTime, id) of the previous page
+            clauses.add(new Criteria().orOperator(
+                    Criteria.where("eventDateTime").gt(after.getEventDateTime()),
+                    Criteria.where("eventDateTime").is(after.getEventDateTime()).and("id").gt(after.getId())));
+        }
+        Query query = clauses.isEmpty()
+                ? new Query()
+                : new Query(new Criteria().andOperator(clauses.toArray(new Criteria[0])));
+        query.with(Sort.by(Sort.Order.asc("eventDateTime"), Sort.Order.asc("id"))).limit(limit);
+        return findSummaries(query);
+    }
+
+    @Override
+    public List<EventSummary> findUpcomingSummaries(LocalDateTime after) {
+        Query query = new Query(Criteria.where("eventDateTime").gt(after));
+        query.with(Sort.by(Sort.Order.asc("eventDateTime"), Sort.Order.asc("id")));
+        return findSummaries(query);
+    }
+
+    @Override
+    public List<EventSummary> findAllSummaries() {
+        return findSummaries(new Query());
+    }
+
+    @Override
+    public List<EventSummary> findSummariesByOrganizerId(String organizerId) {
+        return findSummaries(new Query(Criteria.where("organizerId").is(organizerId)));
+    }
+
+    @Override
+    public List<EventSummary> findSummariesByIdIn(Collection<String> ids) {
+        return findSummaries(new Query(Criteria.where("id").in(ids)));
+    }
+
+    @Override
+    public Optional<EventSummary> findSummaryById(String id) {
+        return findSummaries(new Query(Criteria.where("id").is(id))).stream().findFirst();
+    }
+
+    @Override
+    public List<NearbyEvent> findNearby(double latitude, double longitude, double radiusKm, LocalDateTime after, int skip, int limit) {
+        String collection = mongoTemplate.getCollectionName(Events.class);
+        Document near = new Document("type", "Point").append("coordinates", List.of(longitude, latitude));
+        // Same LocalDateTime to Date conversion Spring applies when writing eventDateTime
+        Date afterDate = Date.from(after.atZone(ZoneId.systemDefault()).toInstant());
+        AggregationOperation geoNear = context -> new Document("$geoNear", new Document("near", near)
+                .append("key", "geo")
+                .append("distanceField", "distance")
+                .append("maxDistance", radiusKm * 1000)
+                .append("spherical", true)
+                .append("query", new Document("eventDateTime", new Document("$gt", afterDate))));
+        Aggregation aggregation = Aggregation.newAggregation(
+                geoNear,
+                Aggregation.skip((long) skip),
+                Aggregation.limit(limit),
+                Aggregation.project(EventSummary.FIELDS).andInclude("distance"));
+
+        List<NearbyEvent> results = new ArrayList<>();
+        for (Document document : mongoTemplate.aggregate(aggregation, collection, Document.class)) {
+            EventSummary summary = mongoTemplate.getConverter().read(EventSummary.class, document);
+            results.add(new NearbyEvent(summary, document.get("distance", Number.class).doubleValue() / 1000));
+        }
+        return results;
+    }
+
+    @Override
+    public List<String> backfillGeoPoints() {
+        Criteria missing = Criteria.where("location").ne(null).and("geo").exists(false);
+        Query idsQuery = new Query(missing);
+        idsQuery.fields().include("id");
+        List<String> ids = new ArrayList<>();
+        for (Events event : mongoTemplate.find(idsQuery, Events.class)) {
+            ids.add(event.getId());
+        }
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("geo").toValue(new Document("type", "Point")
+                        .append("coordinates", List.of("$location.longitude", "$location.latitude")))
+                .set("version").toValue(new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0)), 1)));
+        mongoTemplate.updateMulti(new Query(Criteria.where("id").in(ids).andOperator(missing)), update, Events.class);
+        return ids;
+    }
+
+    @Override
+    public List<Events> findEventsWithInlineImage(String afterId, int limit) {
+        Criteria criteria = Criteria.where("eventImageBase64").exists(true).ne(null);
+        if (afterId != null) {
+            criteria = criteria.and("id").gt(afterId);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Order.asc("id"))).limit(limit);
+        query.fields().include("eventImageBase64");
+        return mongoTemplate.find(query, Events.class);
+    }
+
+    @Override
+    public void replaceInlineImage(String eventId, String imageId) {
+        Update update = new Update().unset("eventImageBase64").inc("version", 1);
+        if (imageId != null) {
+            update.set("imageId", imageId);
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(eventId)), update, Events.class);
+    }
+
+    private List<EventSummary> findSummaries(Query query) {
+        // Projection is applied by Mongo, unused fields never leave the server
+        query.fields().include(EventSummary.FIELDS);
+        return mongoTemplate.find(query, EventSummary.class, mongoTemplate.getCollectionName(Events.class));
+    }
+}
@@ -0,0 +1,7 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.GeocodeCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface GeocodeCacheRepo extends MongoRepository<GeocodeCacheEntry, String> {
+}
@@ -0,0 +1,7 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRecordRepo extends MongoRepository<IdempotencyRecord, String> {
+}
@@ -0,0 +1,7 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.MigrationState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface MigrationStateRepo extends MongoRepository<MigrationState, String> {
+}
@@ -0,0 +1,7 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.QrCodeImage;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface QrCodeImageRepo extends MongoRepository<QrCodeImage, String> {
+}
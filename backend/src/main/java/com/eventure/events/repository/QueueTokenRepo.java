@@ -0,0 +1,8 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.QueueToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface QueueTokenRepo extends MongoRepository<QueueToken, String> {
+    void deleteByIssuedAtLessThan(long issuedAt);
+}
@@ -0,0 +1,17 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.TicketHold;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TicketHoldRepo extends MongoRepository<TicketHold, String> {
+    List<TicketHold> findByEventId(String eventId);
+
+    // Single deletes, the deleted count tells which confirm, release or expiry got the hold
+    long removeById(String id);
+
+    long removeByIdAndEventIdAndUserIdAndTicketCountAndExpiresAtAfter(String id, String eventId, String userId,
+                                                                      int ticketCount, LocalDateTime now);
+}
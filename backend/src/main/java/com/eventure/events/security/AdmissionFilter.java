@@ -0,0 +1,132 @@
+package com.eventure.events.security;
+
+import com.eventure.events.Services.AdmissionQueueService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns away checkout requests that have not been let in by the waiting room,
+ * before they reach a controller. Covers the payment step as well since that is
+ * where tickets get held. The token has to belong to the queue of the event in
+ * the request body, so a token from a quiet event does not skip a busy one, and
+ * to the user in the body, so an admitted token cannot be handed around.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    public static final String QUEUE_TOKEN_HEADER = "X-Queue-Token";
+
+    @Autowired
+    private AdmissionQueueService admissionQueueService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!admissionQueueService.isEnabled() || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return !"/api/bookEvent".equals(path) && !"/api/events/create-payment".equals(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Checkout bodies are small, read it once here and replay it to the controller
+        CachedBodyRequest cached = new CachedBodyRequest(request);
+        String token = request.getHeader(QUEUE_TOKEN_HEADER);
+        JsonNode body = parse(cached.body);
+        if (!admissionQueueService.isAdmitted(token, textField(body, "eventId"), textField(body, "userId"))) {
+            response.setStatus(429);
+            response.setHeader("Retry-After", "5");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"status\":429,\"message\":\"Not admitted from the waiting room yet\"}");
+            return;
+        }
+        chain.doFilter(cached, response);
+        // Tickets are held or booked now, the visitor no longer counts against the next admissions
+        if (response.getStatus() < 300) {
+            admissionQueueService.markConverted(token);
+        }
+    }
+
+    private JsonNode parse(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException | RuntimeException e) {
+            // Not JSON, the controller rejects it anyway
+            return null;
+        }
+    }
+
+    private static String textField(JsonNode body, String name) {
+        JsonNode field = body == null ? null : body.get(name);
+        return field != null && field.isTextual() ? field.asText() : null;
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -29,6 +29,9 @@ public class SecurityConfig {
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
 
+    @Autowired
+    private AdmissionFilter admissionFilter;
+
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
@@ -44,7 +47,11 @@ public class SecurityConfig {
                             new AntPathRequestMatcher("/"),
                             new AntPathRequestMatcher("/ping"),
                             new AntPathRequestMatcher("/api/auth/signup"),
-                            new AntPathRequestMatcher("/api/auth/login")
+                            new AntPathRequestMatcher("/api/auth/login"),
+                            // Loaded by <img> tags, which cannot send the bearer token
+                            new AntPathRequestMatcher("/api/images/**", "GET"),
+                            // EventSource cannot send the bearer token either
+                            new AntPathRequestMatcher("/api/events/*/availability", "GET")
                         ).permitAll()
                         .requestMatchers(new AntPathRequestMatcher("/api/events/createEvent")).hasRole("MANAGER")
 
@@ -52,6 +59,7 @@ public class SecurityConfig {
                 );
 
         http.addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(admissionFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 
@@ -84,6 +92,7 @@ public class SecurityConfig {
         config.addAllowedMethod("OPTIONS");
         config.addAllowedHeader("*");
         config.addExposedHeader("Authorization");
+        config.addExposedHeader("Retry-After");
         config.setAllowCredentials(true);
         config.setMaxAge(3600L);
 
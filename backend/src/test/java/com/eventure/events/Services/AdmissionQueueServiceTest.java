@@ -0,0 +1,95 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.Events;
+import com.eventure.events.repository.AdmissionQueueStateRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.QueueTokenRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionQueueServiceTest {
+
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final AdmissionQueueService service = new AdmissionQueueService(eventRepo, mock(QueueTokenRepo.class),
+			mock(AdmissionQueueStateRepo.class), true, false, 10, 900);
+
+	@BeforeEach
+	void setUp() {
+		when(eventRepo.existsById(anyString())).thenReturn(true);
+		available("quiet", 100);
+		available("busy", 0);
+	}
+
+	@Test
+	void tokenOnlyAdmitsToItsOwnEvent() {
+		String token = service.join("quiet", "u1").getToken();
+		service.admit();
+
+		assertTrue(service.isAdmitted(token, "quiet", "u1"));
+		assertFalse(service.isAdmitted(token, "busy", "u1"));
+		assertFalse(service.isAdmitted(token, null, "u1"));
+	}
+
+	@Test
+	void tokenOnlyAdmitsTheUserWhoJoined() {
+		String token = service.join("quiet", "u1").getToken();
+		service.admit();
+
+		assertFalse(service.isAdmitted(token, "quiet", "u2"));
+		assertFalse(service.isAdmitted(token, "quiet", null));
+		assertThrows(MyException.class, () -> service.join("quiet", null));
+	}
+
+	@Test
+	void admittedVisitorsCountAgainstRemainingTickets() {
+		available("show", 3);
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			tokens.add(service.join("show", "u" + i).getToken());
+		}
+
+		service.admit();
+		service.admit();
+		assertEquals(3, admitted(tokens));
+
+		// One of them booked, inventory went down with it and nobody new gets in
+		service.markConverted(tokens.get(0));
+		available("show", 2);
+		service.admit();
+		assertEquals(3, admitted(tokens));
+
+		// Tickets came back, room for one more
+		available("show", 3);
+		service.admit();
+		assertEquals(4, admitted(tokens));
+	}
+
+	private long admitted(List<String> tokens) {
+		long count = 0;
+		for (int i = 0; i < tokens.size(); i++) {
+			if (service.isAdmitted(tokens.get(i), "show", "u" + i)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void available(String eventId, int tickets) {
+		Events inventory = new Events();
+		inventory.setAvailable_tickets(tickets);
+		when(eventRepo.findInventoryById(eventId)).thenReturn(Optional.of(inventory));
+	}
+}
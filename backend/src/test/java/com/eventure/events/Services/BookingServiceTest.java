@@ -0,0 +1,59 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.BookingDetails;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.Users;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingServiceTest {
+
+	private final BookingRepo bookingRepo = mock(BookingRepo.class);
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final UserRepo userRepo = mock(UserRepo.class);
+	private final RenderBulkhead renderBulkhead = new RenderBulkhead(new SimpleMeterRegistry(), 1, 0, 1);
+	private final BookingService bookingService = new BookingService(bookingRepo, eventRepo, userRepo,
+			mock(QrCodeService.class), mock(PdfTicketService.class), mock(TicketInventory.class),
+			mock(TicketHoldService.class), mock(TicketIdGenerator.class), renderBulkhead);
+
+	@AfterEach
+	void tearDown() {
+		renderBulkhead.shutdown();
+	}
+
+	@Test
+	void pdfSlotIsGivenBackWhenTheBodyNeverRuns() throws Exception {
+		BookingDetails booking = new BookingDetails();
+		booking.setId("b1");
+		booking.setUserId("u1");
+		booking.setEventId("e1");
+		when(bookingRepo.findById("b1")).thenReturn(Optional.of(booking));
+		when(eventRepo.findById("e1")).thenReturn(Optional.of(new Events()));
+		when(userRepo.findById("u1")).thenReturn(Optional.of(new Users()));
+		WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(new MockHttpServletRequest());
+
+		bookingService.generatePdf("b1", "u1", asyncManager);
+		assertThrows(RuntimeException.class, renderBulkhead::reserve);
+
+		// The async request timed out while the body was still queued
+		CallableProcessingInterceptor interceptor = asyncManager.getCallableInterceptor(RenderBulkhead.Slot.class.getName());
+		interceptor.afterCompletion(null, () -> null);
+
+		assertDoesNotThrow(() -> renderBulkhead.reserve().release());
+	}
+}
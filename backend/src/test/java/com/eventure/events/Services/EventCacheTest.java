@@ -0,0 +1,132 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.Events;
+import com.eventure.events.repository.EventRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventCacheTest {
+
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final EventCache cache = new EventCache(eventRepo, registry, 2, 60_000);
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(eventRepo.findById("e1")).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.of(event("e1"));
+		});
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			Future<Optional<Events>> first = pool.submit(() -> cache.get("e1"));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			Future<?>[] others = new Future<?>[7];
+			for (int i = 0; i < others.length; i++) {
+				others[i] = pool.submit(() -> cache.get("e1"));
+			}
+			Thread.sleep(100);
+			release.countDown();
+
+			assertEquals("e1", first.get(5, TimeUnit.SECONDS).get().getId());
+			for (Future<?> other : others) {
+				other.get(5, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		verify(eventRepo, times(1)).findById("e1");
+	}
+
+	@Test
+	void changeDropsTheCachedEvent() {
+		when(eventRepo.findById("e1")).thenReturn(Optional.of(event("e1")));
+
+		cache.get("e1");
+		cache.get("e1");
+		cache.onEventChanged(new EventChangedEvent(this, "e1", EventChangedEvent.Kind.INVENTORY));
+		cache.get("e1");
+
+		verify(eventRepo, times(2)).findById("e1");
+		assertEquals(1.0, registry.counter("event.cache.gets", "result", "hit").count());
+	}
+
+	@Test
+	void changeToAnotherEventDoesNotDiscardALoad() {
+		when(eventRepo.findById("e1")).thenAnswer(invocation -> {
+			cache.onEventChanged(new EventChangedEvent(this, "e2", EventChangedEvent.Kind.INVENTORY));
+			return Optional.of(event("e1"));
+		});
+
+		cache.get("e1");
+		cache.get("e1");
+
+		verify(eventRepo, times(1)).findById("e1");
+	}
+
+	@Test
+	void changeDuringTheLoadIsNotCached() {
+		when(eventRepo.findById("e1")).thenAnswer(invocation -> {
+			cache.onEventChanged(new EventChangedEvent(this, "e1", EventChangedEvent.Kind.INVENTORY));
+			return Optional.of(event("e1"));
+		});
+
+		cache.get("e1");
+		cache.get("e1");
+
+		verify(eventRepo, times(2)).findById("e1");
+	}
+
+	@Test
+	void entriesExpireAfterTheTtl() throws Exception {
+		EventCache shortLived = new EventCache(eventRepo, registry, 2, 20);
+		when(eventRepo.findById("e1")).thenReturn(Optional.of(event("e1")));
+
+		shortLived.get("e1");
+		shortLived.get("e1");
+		Thread.sleep(40);
+		shortLived.get("e1");
+
+		verify(eventRepo, times(2)).findById("e1");
+	}
+
+	@Test
+	void leastRecentlyUsedEventIsEvicted() {
+		for (String id : new String[] {"e1", "e2", "e3"}) {
+			when(eventRepo.findById(id)).thenReturn(Optional.of(event(id)));
+		}
+
+		cache.get("e1");
+		cache.get("e2");
+		cache.get("e1");
+		cache.get("e3");
+		cache.get("e1");
+		cache.get("e2");
+
+		verify(eventRepo, times(1)).findById("e1");
+		verify(eventRepo, times(2)).findById("e2");
+		assertEquals(2.0, registry.counter("event.cache.evictions").count());
+	}
+
+	private static Events event(String id) {
+		return Events.builder().id(id).build();
+	}
+}
@@ -0,0 +1,67 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.MyException;
+import com.mongodb.client.gridfs.GridFSFindIterable;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventImageServiceTest {
+
+	private final GridFsTemplate gridFsTemplate = mock(GridFsTemplate.class);
+	private final EventImageService service = new EventImageService(gridFsTemplate);
+
+	@BeforeEach
+	void setUp() {
+		when(gridFsTemplate.find(any(Query.class))).thenReturn(mock(GridFSFindIterable.class));
+	}
+
+	@Test
+	void storedTypeComesFromTheBytesNotTheDataUrl() throws Exception {
+		BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", png);
+
+		service.store("data:text/html;base64," + Base64.getEncoder().encodeToString(png.toByteArray()));
+
+		verify(gridFsTemplate).store(any(InputStream.class), anyString(), eq("image/png"), any(Document.class));
+		verify(gridFsTemplate, never()).store(any(InputStream.class), anyString(), eq("text/html"), any(Document.class));
+	}
+
+	@Test
+	void nonImagesAreRejected() {
+		String html = Base64.getEncoder().encodeToString("<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8));
+
+		assertThrows(MyException.class, () -> service.store("data:image/png;base64," + html));
+		verify(gridFsTemplate, never()).store(any(InputStream.class), anyString(), anyString(), any(Document.class));
+	}
+
+	@Test
+	void sniffsTheAllowedFormats() {
+		assertEquals("image/jpeg", EventImageService.sniffContentType(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0}));
+		assertEquals("image/gif", EventImageService.sniffContentType("GIF89a....".getBytes(StandardCharsets.US_ASCII)));
+		assertEquals("image/webp", EventImageService.sniffContentType("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII)));
+		assertNull(EventImageService.sniffContentType("RIFF\0\0\0\0WAVEfmt ".getBytes(StandardCharsets.US_ASCII)));
+		assertNull(EventImageService.sniffContentType(new byte[0]));
+	}
+}
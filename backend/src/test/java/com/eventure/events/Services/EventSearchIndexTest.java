@@ -0,0 +1,92 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.EventSearchResponse;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.repository.EventRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventSearchIndexTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 1, 12, 0);
+
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final EventSearchIndex index = new EventSearchIndex(eventRepo, new EventSuggester(), new SimpleMeterRegistry());
+
+	@BeforeEach
+	void setUp() {
+		when(eventRepo.findAllSummaries()).thenReturn(List.of(
+				event("e1", "Jazz Night", "Live jazz downtown", "Music", "San Jose", 5),
+				event("e2", "Rock Festival", "Jazz and rock bands all day", "Music", "Oakland", 10),
+				event("e3", "Comedy Jam", "Stand-up comedy", "Comedy", "San Jose", 2),
+				event("e4", "Jazz Brunch", "Brunch with a jazz trio", "Food", "San Jose", -3)));
+		index.rebuild();
+	}
+
+	@Test
+	void nameMatchesRankAboveDescriptionMatches() {
+		EventSearchResponse response = index.search("jazz", null, null, NOW, null, 0, 10);
+
+		assertEquals(List.of("e1", "e2"), ids(response));
+		assertEquals(2, response.getTotal());
+	}
+
+	@Test
+	void allTermsHaveToMatch() {
+		assertEquals(List.of("e2"), ids(index.search("jazz rock", null, null, NOW, null, 0, 10)));
+		assertEquals(List.of(), ids(index.search("jazz polka", null, null, NOW, null, 0, 10)));
+	}
+
+	@Test
+	void facetsIgnoreTheirOwnFilter() {
+		EventSearchResponse response = index.search("", null, "san jose", NOW, null, 0, 10);
+
+		assertEquals(List.of("e3", "e1"), ids(response));
+		assertEquals(2, response.getCities().get("San Jose"));
+		assertEquals(1, response.getCities().get("Oakland"));
+		assertEquals(2, response.getCategories().get("Music"));
+	}
+
+	@Test
+	void dateRangeIncludesPastEventsWhenAsked() {
+		EventSearchResponse response = index.search("jazz", null, null, NOW.minusDays(7), NOW, 0, 10);
+
+		assertEquals(List.of("e4"), ids(response));
+	}
+
+	@Test
+	void refreshPicksUpChangedEvents() {
+		index.onEventChanged(new EventChangedEvent(this, "e3", EventChangedEvent.Kind.UPDATED));
+		when(eventRepo.findSummariesByIdIn(any())).thenReturn(
+				List.of(event("e3", "Jazz Comedy Jam", "Stand-up comedy", "Comedy", "San Jose", 2)));
+		index.refresh();
+
+		assertEquals(List.of("e1", "e3", "e2"), ids(index.search("jazz", null, null, NOW, null, 0, 10)));
+		assertEquals(List.of("e3"), ids(index.search("comedy", null, null, NOW, null, 0, 10)));
+	}
+
+	private static List<String> ids(EventSearchResponse response) {
+		return response.getItems().stream().map(EventSummary::getId).collect(Collectors.toList());
+	}
+
+	private static EventSummary event(String id, String name, String desc, String category, String city, int daysFromNow) {
+		return EventSummary.builder()
+				.id(id)
+				.eventName(name)
+				.desc(desc)
+				.eventCategory(category)
+				.city(city)
+				.eventDateTime(NOW.plusDays(daysFromNow))
+				.build();
+	}
+}
@@ -0,0 +1,123 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.EventByUserResponse;
+import com.eventure.events.dto.EventPage;
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.PageCursor;
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.BookingDetails;
+import com.eventure.events.model.Events;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.UserRepo;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventServicesTest {
+
+	private final BookingRepo bookingRepo = mock(BookingRepo.class);
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final EventCache eventCache = mock(EventCache.class);
+	private final EventServices eventServices = new EventServices(bookingRepo, eventRepo, mock(UserRepo.class),
+			mock(TicketInventory.class), mock(ApplicationEventPublisher.class), mock(EventImageService.class),
+			eventCache, mock(GeocodingService.class));
+
+	@Test
+	void etagComesFromTheStoredVersion() {
+		when(eventRepo.findVersionById("e1")).thenReturn(Optional.of(Events.builder().id("e1").version(7).build()));
+
+		assertEquals("\"e1-7\"", eventServices.getEventEtag("e1"));
+		assertNull(eventServices.getEventEtag("missing"));
+		verify(eventCache, never()).get(anyString());
+	}
+
+	@Test
+	void eventsByUserAreLoadedInOneQuery() {
+		when(bookingRepo.findByUserIdAndBookingStatus("user-1", "CONFIRMED"))
+				.thenReturn(List.of(booking("b1", "e1"), booking("b2", "e2"), booking("b3", "e1")));
+		when(eventRepo.findSummariesByIdIn(Set.of("e1", "e2")))
+				.thenReturn(List.of(summary("e1"), summary("e2")));
+
+		List<EventByUserResponse> responses = eventServices.getEventsByUserId("user-1");
+
+		assertEquals(3, responses.size());
+		assertEquals("e1", responses.get(0).getEvent().getId());
+		assertEquals("e2", responses.get(1).getEvent().getId());
+		assertEquals("e1", responses.get(2).getEvent().getId());
+		verify(eventRepo, times(1)).findSummariesByIdIn(any());
+		verify(eventRepo, never()).findById(anyString());
+		verify(eventRepo, never()).findSummaryById(anyString());
+	}
+
+	@Test
+	void bookingPagesContinueAfterBookingsWithoutCreatedAt() {
+		String undated = new ObjectId().toHexString();
+		when(bookingRepo.findUserBookingsPage(eq("user-1"), eq("CONFIRMED"), any(), eq(2)))
+				.thenReturn(List.of(booking(undated, "e1"), booking(new ObjectId().toHexString(), "e1")));
+		when(eventRepo.findSummariesByIdIn(Set.of("e1"))).thenReturn(List.of(summary("e1")));
+
+		EventPage<EventByUserResponse> page = eventServices.getEventsByUserIdPage("user-1", null, 1);
+
+		assertNotNull(page.getItems().get(0).getBooking().getCreatedAt());
+		PageCursor next = PageCursor.decode(page.getNextCursor());
+		assertNull(next.getEventDateTime());
+		assertEquals(undated, next.getId());
+	}
+
+	@Test
+	void tamperedBookingCursorIsRejected() {
+		String cursor = new PageCursor(LocalDateTime.now(), "not-an-object-id").encode();
+
+		assertThrows(MyException.class, () -> eventServices.getEventsByUserIdPage("user-1", cursor, 10));
+	}
+
+	@Test
+	void nearbyRejectsBadInput() {
+		MyException page = assertThrows(MyException.class, () -> eventServices.getNearbyEvents(37.33, -121.89, 10, -1, 20));
+		assertEquals("page must not be negative", page.getMessage());
+		assertThrows(MyException.class, () -> eventServices.getNearbyEvents(91, -121.89, 10, 0, 20));
+		assertThrows(MyException.class, () -> eventServices.getNearbyEvents(37.33, -181, 10, 0, 20));
+		assertThrows(MyException.class, () -> eventServices.getNearbyEvents(37.33, -121.89, 0, 0, 20));
+		assertThrows(MyException.class, () -> eventServices.getNearbyEvents(37.33, -121.89, 10, 0, 101));
+		verify(eventRepo, never()).findNearby(anyDouble(), anyDouble(), anyDouble(), any(), anyInt(), anyInt());
+	}
+
+	@Test
+	void nearbyPagesBySkip() {
+		eventServices.getNearbyEvents(37.33, -121.89, 10, 2, 20);
+
+		verify(eventRepo).findNearby(eq(37.33), eq(-121.89), eq(10.0), any(LocalDateTime.class), eq(40), eq(20));
+	}
+
+	private static BookingDetails booking(String id, String eventId) {
+		BookingDetails booking = new BookingDetails();
+		booking.setId(id);
+		booking.setEventId(eventId);
+		return booking;
+	}
+
+	private static EventSummary summary(String id) {
+		return EventSummary.builder().id(id).build();
+	}
+}
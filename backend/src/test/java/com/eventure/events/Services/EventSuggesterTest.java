@@ -0,0 +1,90 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventSuggesterTest {
+
+	private final EventSuggester suggester = new EventSuggester();
+
+	@Test
+	void mostCommonValuesComeFirst() {
+		suggester.add(event("Jazz Night", "San Jose", "Music"));
+		suggester.add(event("Salsa Social", "San Jose", "Dance"));
+		suggester.add(event("Sake Tasting", "San Francisco", "Food"));
+		suggester.publish();
+
+		assertEquals(List.of("San Jose", "Sake Tasting", "Salsa Social", "San Francisco"), texts(suggester.suggest("sa", 8)));
+		assertEquals(List.of("San Jose", "Sake Tasting"), texts(suggester.suggest("Sa", 2)));
+		assertEquals(2, suggester.suggest("san j", 8).get(0).getCount());
+	}
+
+	@Test
+	void namesMatchOnLaterWords() {
+		suggester.add(event("Jazz Night", "Oakland", "Music"));
+		suggester.publish();
+
+		List<Suggestion> suggestions = suggester.suggest("nig", 8);
+		assertEquals(List.of("Jazz Night"), texts(suggestions));
+		assertEquals(Suggestion.EVENT, suggestions.get(0).getType());
+	}
+
+	@Test
+	void removedEventsDisappearAfterPublish() {
+		EventSummary event = event("Jazz Night", "Oakland", "Music");
+		suggester.add(event);
+		suggester.publish();
+		suggester.remove(event);
+
+		assertEquals(List.of("Jazz Night"), texts(suggester.suggest("jazz", 8)));
+		suggester.publish();
+		assertTrue(suggester.suggest("jazz", 8).isEmpty());
+		assertTrue(suggester.suggest("", 8).isEmpty());
+	}
+
+	@Test
+	void reReadEventsAndCountChangesArePublished() {
+		EventSummary jazz = event("Jazz Night", "Oakland", "Music");
+		suggester.add(jazz);
+		suggester.publish();
+
+		// An inventory change re-reads the event unchanged
+		suggester.remove(jazz);
+		suggester.add(jazz);
+		suggester.add(event("Jazz Brunch", "Oakland", "Food"));
+		suggester.publish();
+		assertEquals(2, suggester.suggest("oak", 8).get(0).getCount());
+
+		suggester.remove(jazz);
+		suggester.publish();
+		assertEquals(1, suggester.suggest("oak", 8).get(0).getCount());
+		assertEquals(List.of("Jazz Brunch"), texts(suggester.suggest("jazz", 8)));
+	}
+
+	@Test
+	void respelledNamesArePublished() {
+		EventSummary event = event("Jazz night", "Oakland", "Music");
+		suggester.add(event);
+		suggester.publish();
+
+		suggester.remove(event);
+		suggester.add(event("Jazz Night", "Oakland", "Music"));
+		suggester.publish();
+		assertEquals(List.of("Jazz Night"), texts(suggester.suggest("jazz", 8)));
+	}
+
+	private static List<String> texts(List<Suggestion> suggestions) {
+		return suggestions.stream().map(Suggestion::getText).collect(Collectors.toList());
+	}
+
+	private static EventSummary event(String name, String city, String category) {
+		return EventSummary.builder().eventName(name).city(city).eventCategory(category).build();
+	}
+}
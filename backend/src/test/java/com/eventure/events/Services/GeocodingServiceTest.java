@@ -0,0 +1,125 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.EventSummary;
+import com.eventure.events.dto.Location;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.GeocodeCacheEntry;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.GeocodeCacheRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GeocodingServiceTest {
+
+	private final GeocodingProvider provider = spy(new StubGeocodingProvider());
+	private final GeocodeCacheRepo geocodeCacheRepo = mock(GeocodeCacheRepo.class);
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final GeocodingService geocodingService = new GeocodingService(provider, geocodeCacheRepo, eventRepo,
+			mock(ApplicationEventPublisher.class), registry, 1, 10, 0, 3, 60_000);
+
+	@AfterEach
+	void tearDown() {
+		geocodingService.shutdown();
+	}
+
+	@Test
+	void normalizedAddressesShareACacheEntry() {
+		assertEquals("1 main st, san jose, ca, 95112",
+				GeocodingService.normalize("1  Main St.,San Jose , CA, 95112"));
+	}
+
+	@Test
+	void cacheMissGoesToTheProviderAndIsStored() {
+		when(geocodeCacheRepo.findById(anyString())).thenReturn(Optional.empty());
+		when(eventRepo.updateLocation(any(), any())).thenReturn(true);
+
+		geocodingService.resolve(address("e1"));
+
+		verify(provider).geocode("1 Main St, San Jose, CA, 95112");
+		verify(geocodeCacheRepo).save(any(GeocodeCacheEntry.class));
+		verify(eventRepo).updateLocation(any(Events.class), any(Location.class));
+		assertEquals(1.0, registry.counter("geocoding.lookups", "result", "resolved").count());
+	}
+
+	@Test
+	void cacheHitSkipsTheProvider() {
+		GeocodeCacheEntry entry = GeocodeCacheEntry.builder()
+				.id("1 main st, san jose, ca, 95112").found(true).latitude(37.33).longitude(-121.89).build();
+		when(geocodeCacheRepo.findById("1 main st, san jose, ca, 95112")).thenReturn(Optional.of(entry));
+
+		geocodingService.resolve(address("e1"));
+
+		verify(provider, never()).geocode(anyString());
+		verify(eventRepo).updateLocation(any(Events.class), eq(new Location(37.33, -121.89,
+				"https://www.google.com/maps/search/?api=1&query=1+Main+St,+San+Jose,+CA,+95112")));
+	}
+
+	@Test
+	void providerFailureIsCountedNotThrown() {
+		when(geocodeCacheRepo.findById(anyString())).thenReturn(Optional.empty());
+		when(provider.geocode(anyString())).thenThrow(new IllegalStateException("timeout"));
+
+		geocodingService.resolve(address("e1"));
+
+		verify(eventRepo, never()).updateLocation(any(), any());
+		assertEquals(1.0, registry.counter("geocoding.lookups", "result", "error").count());
+	}
+
+	@Test
+	void failedLookupIsRetriedByTheSweep() {
+		when(geocodeCacheRepo.findById(anyString())).thenReturn(Optional.empty());
+		when(provider.geocode(anyString()))
+				.thenThrow(new IllegalStateException("timeout"))
+				.thenReturn(Optional.of(new Location(37.33, -121.89, null)));
+		when(eventRepo.findSummaryById("e1")).thenReturn(Optional.of(EventSummary.builder()
+				.id("e1").address("1 Main St").city("San Jose").state("CA").zipCode("95112").build()));
+		when(eventRepo.updateLocation(any(), any())).thenReturn(true);
+
+		geocodingService.resolve(address("e1"));
+		geocodingService.retryFailed();
+
+		verify(eventRepo, timeout(2000)).updateLocation(any(Events.class), any(Location.class));
+	}
+
+	@Test
+	void notFoundEntriesExpire() {
+		when(geocodeCacheRepo.findById(anyString())).thenReturn(Optional.empty());
+		when(provider.geocode(anyString())).thenReturn(Optional.empty());
+
+		geocodingService.resolve(address("e1"));
+
+		ArgumentCaptor<GeocodeCacheEntry> saved = ArgumentCaptor.forClass(GeocodeCacheEntry.class);
+		verify(geocodeCacheRepo).save(saved.capture());
+		assertNotNull(saved.getValue().getExpiresAt());
+	}
+
+	@Test
+	void sameAddressIgnoresFormatting() {
+		Events edited = address("e1");
+		edited.setAddress("1 main st.");
+		assertTrue(GeocodingService.sameAddress(address("e1"), edited));
+	}
+
+	private static Events address(String id) {
+		return Events.builder().id(id).address("1 Main St").city("San Jose").state("CA").zipCode("95112").build();
+	}
+}
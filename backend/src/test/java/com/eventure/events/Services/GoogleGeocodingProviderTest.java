@@ -0,0 +1,34 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.Location;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GoogleGeocodingProviderTest {
+
+	@Test
+	void addressIsEncodedOnce() {
+		MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+		GoogleGeocodingProvider provider = new GoogleGeocodingProvider(new RestTemplateBuilder(customizer), "k+1", 1000);
+		MockRestServiceServer server = customizer.getServer();
+		server.expect(requestTo("https://maps.googleapis.com/maps/api/geocode/json"
+						+ "?address=12%20Main%20St%2C%20Springfield%20%26%20Co&key=k%2B1"))
+				.andRespond(withSuccess("{\"status\":\"OK\",\"results\":[{\"geometry\":{\"location\":{\"lat\":1.5,\"lng\":2.5}}}]}",
+						MediaType.APPLICATION_JSON));
+
+		Optional<Location> location = provider.geocode("12 Main St, Springfield & Co");
+
+		server.verify();
+		assertEquals(1.5, location.get().getLatitude());
+		assertEquals(2.5, location.get().getLongitude());
+	}
+}
@@ -0,0 +1,75 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.IdempotencyKeyReusedException;
+import com.eventure.events.exception.MyException;
+import com.eventure.events.model.IdempotencyRecord;
+import com.eventure.events.repository.IdempotencyRecordRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+	private final IdempotencyRecordRepo repo = mock(IdempotencyRecordRepo.class);
+	private final IdempotencyService service = new IdempotencyService(repo, new ObjectMapper(), 100);
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@Test
+	void replayWithSameBodyReturnsStoredResponse() {
+		assertEquals("booked", service.execute("book", "k1", Map.of("tickets", 2), String.class, this::book));
+		assertEquals("booked", service.execute("book", "k1", Map.of("tickets", 2), String.class, this::book));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void reusedKeyWithDifferentBodyIsRejected() {
+		service.execute("book", "k1", Map.of("tickets", 2), String.class, this::book);
+
+		assertThrows(IdempotencyKeyReusedException.class,
+				() -> service.execute("book", "k1", Map.of("tickets", 3), String.class, this::book));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void staleClaimIsNotRunAgain() {
+		when(repo.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+		IdempotencyRecord stale = new IdempotencyRecord("book:k1", IdempotencyRecord.IN_PROGRESS, null, null,
+				new Date(System.currentTimeMillis() - 10 * 60_000));
+		when(repo.findById("book:k1")).thenReturn(Optional.of(stale));
+
+		assertThrows(MyException.class, () -> service.execute("book", "k1", Map.of("tickets", 2), String.class, this::book));
+		assertEquals(0, runs.get());
+		verify(repo, never()).deleteById(any());
+	}
+
+	@Test
+	void completionWriteIsRetried() {
+		when(repo.save(any(IdempotencyRecord.class)))
+				.thenThrow(new DataAccessResourceFailureException("primary stepped down"))
+				.thenReturn(null);
+
+		assertEquals("booked", service.execute("book", "k1", Map.of("tickets", 2), String.class, this::book));
+		verify(repo, times(2)).save(any(IdempotencyRecord.class));
+		verify(repo, never()).deleteById(any());
+	}
+
+	private String book() {
+		runs.incrementAndGet();
+		return "booked";
+	}
+}
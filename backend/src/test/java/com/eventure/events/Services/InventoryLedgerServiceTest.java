@@ -0,0 +1,100 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.InventoryDelta;
+import com.eventure.events.model.Events;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.TicketHoldRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InventoryLedgerServiceTest {
+
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final BookingRepo bookingRepo = mock(BookingRepo.class);
+	private final TicketHoldRepo ticketHoldRepo = mock(TicketHoldRepo.class);
+	private final InventoryLedgerService ledger = new InventoryLedgerService(eventRepo, bookingRepo, ticketHoldRepo,
+			mock(ApplicationEventPublisher.class), 2);
+
+	@Test
+	void cancelOnAColdCounterIsCountedOnce() {
+		Events event = new Events();
+		event.setId("e1");
+		event.setEventCapacity(10);
+		event.setAvailable_tickets(6);
+		event.setEventAttendees(4);
+		when(eventRepo.findById("e1")).thenReturn(Optional.of(event));
+		when(ticketHoldRepo.findByEventId("e1")).thenReturn(Collections.emptyList());
+		when(bookingRepo.sumConfirmedTickets("e1")).thenReturn(4);
+
+		// The cancel commits after the rebuild read the confirmed bookings
+		assertTrue(ledger.releaseAfter("e1", 4, () -> {
+			when(bookingRepo.sumConfirmedTickets("e1")).thenReturn(0);
+			return true;
+		}));
+
+		assertTrue(ledger.reserve("e1", 10));
+		assertFalse(ledger.reserve("e1", 1));
+	}
+
+	@Test
+	void failedWriteGivesNothingBack() {
+		Events event = new Events();
+		event.setId("e1");
+		event.setEventCapacity(10);
+		event.setAvailable_tickets(6);
+		event.setEventAttendees(4);
+		when(eventRepo.findById("e1")).thenReturn(Optional.of(event));
+		when(ticketHoldRepo.findByEventId("e1")).thenReturn(Collections.emptyList());
+		when(bookingRepo.sumConfirmedTickets("e1")).thenReturn(4);
+
+		assertFalse(ledger.releaseAfter("e1", 4, () -> false));
+
+		assertTrue(ledger.reserve("e1", 6));
+		assertFalse(ledger.reserve("e1", 1));
+	}
+
+	@Test
+	void failedFlushIsResentWithTheSameSequence() {
+		Events event = new Events();
+		event.setId("e1");
+		event.setEventCapacity(10);
+		event.setAvailable_tickets(10);
+		when(eventRepo.findById("e1")).thenReturn(Optional.of(event));
+		when(ticketHoldRepo.findByEventId("e1")).thenReturn(Collections.emptyList());
+		List<InventoryDelta> sent = new ArrayList<>();
+		doAnswer(invocation -> {
+			List<InventoryDelta> batch = invocation.getArgument(0);
+			sent.addAll(batch);
+			if (sent.size() == 1) {
+				throw new IllegalStateException("bulk write failed after applying");
+			}
+			return null;
+		}).when(eventRepo).applyInventoryDeltas(anyList());
+
+		assertTrue(ledger.reserve("e1", 3));
+		ledger.flush();
+		assertTrue(ledger.reserve("e1", 2));
+		ledger.flush();
+		ledger.flush();
+
+		assertEquals(3, sent.size());
+		assertEquals(sent.get(0), sent.get(1));
+		assertEquals(-3, sent.get(1).getAvailableDelta());
+		assertEquals(-2, sent.get(2).getAvailableDelta());
+		assertTrue(sent.get(2).getSequence() > sent.get(1).getSequence());
+	}
+}
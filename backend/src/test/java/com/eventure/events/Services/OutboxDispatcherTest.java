@@ -0,0 +1,116 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.OutboxMessage;
+import com.eventure.events.dto.Ticket;
+import com.eventure.events.model.BookingDetails;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.Users;
+import com.eventure.events.repository.BookingRepo;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+	// Local SMTP stand-in: keeps the messages instead of talking to a server
+	static class RecordingMailSender extends JavaMailSenderImpl {
+		final List<MimeMessage> sent = new ArrayList<>();
+		boolean down;
+
+		@Override
+		public void send(MimeMessage... mimeMessages) {
+			if (down) {
+				throw new MailSendException("SMTP server unavailable");
+			}
+			sent.addAll(List.of(mimeMessages));
+		}
+	}
+
+	private final BookingRepo bookingRepo = mock(BookingRepo.class);
+	private final UserRepo userRepo = mock(UserRepo.class);
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final RecordingMailSender mailSender = new RecordingMailSender();
+	private OutboxDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() {
+		EmailService emailService = new EmailService();
+		ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+		dispatcher = new OutboxDispatcher(bookingRepo, userRepo, eventRepo, emailService, new SimpleMeterRegistry(), 1, 10, 3, 1000);
+
+		Users user = Users.builder().id("u1").firstName("Ada").lastName("Lovelace").email("ada@example.com").build();
+		Events event = Events.builder().id("e1").eventName("Launch").eventDateTime(LocalDateTime.now().plusDays(3))
+				.address("1 Main St").city("San Jose").state("CA").zipCode("95112").build();
+		when(userRepo.findById("u1")).thenReturn(Optional.of(user));
+		when(eventRepo.findById("e1")).thenReturn(Optional.of(event));
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void sendsConfirmationAndMarksMessageSent() throws MessagingException {
+		OutboxMessage message = OutboxMessage.pending(OutboxMessage.BOOKING_CONFIRMATION);
+		dispatcher.dispatch(booking(message), message);
+
+		assertEquals(1, mailSender.sent.size());
+		assertEquals("Booking Confirmation - Launch", mailSender.sent.get(0).getSubject());
+		verify(bookingRepo).completeOutboxMessage("b1", message.getId());
+	}
+
+	@Test
+	void failedSendIsRetriedWithBackoff() {
+		mailSender.down = true;
+		OutboxMessage message = OutboxMessage.pending(OutboxMessage.BOOKING_CANCELLATION);
+		dispatcher.dispatch(booking(message), message);
+
+		verify(bookingRepo).retryOutboxMessage(eq("b1"), eq(message.getId()), eq(1), any(Date.class), anyString());
+		verify(bookingRepo, never()).completeOutboxMessage(anyString(), anyString());
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		mailSender.down = true;
+		OutboxMessage message = OutboxMessage.pending(OutboxMessage.BOOKING_CONFIRMATION);
+		message.setAttempts(2);
+		dispatcher.dispatch(booking(message), message);
+
+		verify(bookingRepo).failOutboxMessage(eq("b1"), eq(message.getId()), eq(3), anyString());
+	}
+
+	private static BookingDetails booking(OutboxMessage message) {
+		BookingDetails booking = new BookingDetails();
+		booking.setId("b1");
+		booking.setUserId("u1");
+		booking.setTicketCount(1);
+		booking.setTickets(List.of(new Ticket("T1", 10, "e1", "T1", null)));
+		booking.setBookingStatus("CONFIRMED");
+		booking.setOutbox(new ArrayList<>(List.of(message)));
+		return booking;
+	}
+}
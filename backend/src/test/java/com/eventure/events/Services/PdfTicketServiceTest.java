@@ -0,0 +1,109 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.dto.Ticket;
+import com.eventure.events.model.BookingDetails;
+import com.eventure.events.model.Events;
+import com.eventure.events.model.Users;
+import com.eventure.events.repository.QrCodeImageRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PdfTicketServiceTest {
+
+	private final QrCodeService qrCodeService = new QrCodeService(mock(QrCodeImageRepo.class), new RenderBulkhead(new SimpleMeterRegistry(), 2, 8, 1), new SimpleMeterRegistry(), 1 << 20, false);
+	private final PdfTicketService pdfTicketService = new PdfTicketService(qrCodeService, 1 << 20, "");
+
+	@Test
+	void pagesShareOneStaticLayer() throws Exception {
+		byte[] pdf = pdfTicketService.generateTicketPdf(booking(3), event(), user());
+
+		try (PDDocument document = PDDocument.load(pdf)) {
+			assertEquals(3, document.getNumberOfPages());
+			Set<Object> xObjects = new HashSet<>();
+			for (PDPage page : document.getPages()) {
+				for (COSName name : page.getResources().getXObjectNames()) {
+					PDXObject xObject = page.getResources().getXObject(name);
+					xObjects.add(xObject.getCOSObject());
+				}
+			}
+			assertEquals(1, xObjects.size());
+
+			String text = new PDFTextStripper().getText(document);
+			assertTrue(text.contains("Ticket 3 of 3"));
+			assertTrue(text.contains("Ticket ID: T3"));
+			assertTrue(text.contains("Venue: 1 Main St, Austin, TX"));
+		}
+	}
+
+	@Test
+	void streamsWithScratchFileBackedDocument() throws Exception {
+		// Tiny heap budget, page streams go to the scratch file
+		PdfTicketService spilling = new PdfTicketService(qrCodeService, 4096, "");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		spilling.writeTicketPdf(booking(20), event(), user(), out);
+
+		try (PDDocument document = PDDocument.load(out.toByteArray())) {
+			assertEquals(20, document.getNumberOfPages());
+		}
+	}
+
+	@Test
+	void rendersIntoAScratchBufferThatIsCopiedOut() throws Exception {
+		PdfTicketService spilling = new PdfTicketService(qrCodeService, 4096, "");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try (PdfTicketService.RenderedPdf pdf = spilling.renderTicketPdf(booking(20), event(), user())) {
+			pdf.writeTo(out);
+		}
+
+		try (PDDocument document = PDDocument.load(out.toByteArray())) {
+			assertEquals(20, document.getNumberOfPages());
+		}
+	}
+
+	private static BookingDetails booking(int tickets) {
+		List<Ticket> list = new ArrayList<>();
+		for (int i = 1; i <= tickets; i++) {
+			list.add(new Ticket("T" + i, 10.0, "e1", "T" + i, null));
+		}
+		BookingDetails booking = new BookingDetails();
+		booking.setId("b1");
+		booking.setTicketCount(tickets);
+		booking.setTickets(list);
+		return booking;
+	}
+
+	private static Events event() {
+		Events event = new Events();
+		event.setEventName("Show");
+		event.setEventDateTime(LocalDateTime.of(2026, 11, 1, 20, 0));
+		event.setAddress("1 Main St");
+		event.setCity("Austin");
+		event.setState("TX");
+		return event;
+	}
+
+	private static Users user() {
+		Users user = new Users();
+		user.setFirstName("Ada");
+		user.setLastName("Lovelace");
+		return user;
+	}
+}
@@ -0,0 +1,92 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.QrCodeImage;
+import com.eventure.events.repository.QrCodeImageRepo;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QrCodeServiceTest {
+
+	private final QrCodeImageRepo repo = mock(QrCodeImageRepo.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void repeatedRendersAreServedFromCache() throws Exception {
+		QrCodeService service = new QrCodeService(repo, new RenderBulkhead(registry, 2, 8, 1), registry, 1 << 20, false);
+
+		byte[] first = service.generateQrCodeImage("TICKET-1", 150, 150);
+		byte[] second = service.generateQrCodeImage("TICKET-1", 150, 150);
+		byte[] otherSize = service.generateQrCodeImage("TICKET-1", 200, 200);
+
+		assertSame(first, second);
+		assertNotSame(first, otherSize);
+		assertEquals(1.0, registry.counter("qr.cache.gets", "result", "hit").count());
+		assertEquals(2.0, registry.counter("qr.cache.gets", "result", "miss").count());
+		verify(repo, never()).findById(any());
+	}
+
+	@Test
+	void evictsWhenOverByteBudget() throws Exception {
+		QrCodeService service = new QrCodeService(repo, new RenderBulkhead(registry, 2, 8, 1), registry, 1, false);
+
+		byte[] first = service.generateQrCodeImage("TICKET-1", 150, 150);
+		byte[] again = service.generateQrCodeImage("TICKET-1", 150, 150);
+
+		assertNotSame(first, again);
+		assertArrayEquals(first, again);
+	}
+
+	@Test
+	void persistedImageIsUsedInsteadOfRendering() throws Exception {
+		byte[] stored = {1, 2, 3};
+		when(repo.findById("150x150:TICKET-1")).thenReturn(Optional.of(new QrCodeImage("150x150:TICKET-1", stored, new Date())));
+		QrCodeService service = new QrCodeService(repo, new RenderBulkhead(registry, 2, 8, 1), registry, 1 << 20, true);
+
+		assertSame(stored, service.generateQrCodeImage("TICKET-1", 150, 150));
+		verify(repo, never()).save(any());
+	}
+
+	@Test
+	void modulesMatchQrCodeWriter() throws Exception {
+		QrCodeService service = new QrCodeService(repo, new RenderBulkhead(registry, 2, 8, 1), registry, 1 << 20, false);
+
+		BitMatrix modules = service.modules("TICKET-1");
+		BitMatrix drawn = new QRCodeWriter().encode("TICKET-1", BarcodeFormat.QR_CODE, 0, 0);
+
+		assertEquals(drawn.getWidth(), modules.getWidth() + 2 * QrCodeService.QUIET_ZONE);
+		for (int y = 0; y < modules.getHeight(); y++) {
+			for (int x = 0; x < modules.getWidth(); x++) {
+				assertEquals(drawn.get(x + QrCodeService.QUIET_ZONE, y + QrCodeService.QUIET_ZONE), modules.get(x, y));
+			}
+		}
+	}
+
+	@Test
+	void svgUsesModuleViewBox() throws Exception {
+		QrCodeService service = new QrCodeService(repo, new RenderBulkhead(registry, 2, 8, 1), registry, 1 << 20, false);
+		int span = service.modules("TICKET-1").getWidth() + 2 * QrCodeService.QUIET_ZONE;
+
+		String svg = service.generateQrCodeSvg("TICKET-1", 150);
+
+		assertTrue(svg.startsWith("<svg "));
+		assertTrue(svg.contains("viewBox=\"0 0 " + span + " " + span + "\""));
+		assertTrue(svg.contains("<path d=\"M"));
+	}
+}
@@ -0,0 +1,64 @@
+package com.eventure.events.Services;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QrPngEncoderTest {
+
+	@Test
+	void decodesToSamePixelsAsMatrixToImageWriter() throws Exception {
+		BitMatrix matrix = new QRCodeWriter().encode("TICKET-42", BarcodeFormat.QR_CODE, 150, 150);
+
+		byte[] png = QrPngEncoder.encode(matrix);
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+		BufferedImage expected = MatrixToImageWriter.toBufferedImage(matrix);
+
+		assertEquals(expected.getWidth(), decoded.getWidth());
+		assertEquals(expected.getHeight(), decoded.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), decoded.getRGB(x, y), "pixel " + x + "," + y);
+			}
+		}
+		// Bit depth 1, grayscale
+		assertEquals(1, png[24]);
+		assertEquals(0, png[25]);
+	}
+
+	@Test
+	void smallerThanImageIoOutput() throws Exception {
+		BitMatrix matrix = new QRCodeWriter().encode("TICKET-42", BarcodeFormat.QR_CODE, 200, 200);
+		ByteArrayOutputStream imageIo = new ByteArrayOutputStream();
+		MatrixToImageWriter.writeToStream(matrix, "PNG", imageIo);
+
+		assertTrue(QrPngEncoder.encode(matrix).length < imageIo.size());
+	}
+
+	@Test
+	void reusedBuffersDoNotLeakBetweenImages() throws Exception {
+		BitMatrix big = new QRCodeWriter().encode("a much longer ticket payload", BarcodeFormat.QR_CODE, 300, 300);
+		BitMatrix small = new QRCodeWriter().encode("T1", BarcodeFormat.QR_CODE, 100, 100);
+
+		byte[] fresh = QrPngEncoder.encode(small);
+		QrPngEncoder.encode(big);
+		BufferedImage afterBig = ImageIO.read(new ByteArrayInputStream(QrPngEncoder.encode(small)));
+		BufferedImage expected = ImageIO.read(new ByteArrayInputStream(fresh));
+
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), afterBig.getRGB(x, y));
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.exception.RenderBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderBulkheadTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	// One thread, one queue slot
+	private final RenderBulkhead bulkhead = new RenderBulkhead(registry, 1, 1, 7);
+	private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+		bulkhead.shutdown();
+	}
+
+	@Test
+	void rejectsRightAwayWhenThreadsAndQueueAreTaken() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		callers.submit(() -> bulkhead.call(() -> {
+			running.countDown();
+			return release.await(5, TimeUnit.SECONDS);
+		}));
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		callers.submit(() -> bulkhead.call(() -> "queued"));
+		waitFor(() -> registry.get("render.pool.queued").gauge().value() == 1);
+
+		RenderBusyException busy = assertThrows(RenderBusyException.class, () -> bulkhead.call(() -> "third"));
+		assertEquals(7, busy.getRetryAfterSeconds());
+		assertEquals(1.0, registry.get("render.pool.rejected").counter().count());
+
+		release.countDown();
+		waitFor(() -> registry.get("render.pool.latency").timer().count() == 2);
+		assertEquals("after", bulkhead.call(() -> "after"));
+	}
+
+	@Test
+	void reservedSlotIsGivenBackAfterItsJob() throws Exception {
+		RenderBulkhead.Slot first = bulkhead.reserve();
+		RenderBulkhead.Slot second = bulkhead.reserve();
+		assertThrows(RenderBusyException.class, bulkhead::reserve);
+
+		assertEquals("done", first.call(() -> "done"));
+		second.release();
+
+		bulkhead.reserve().release();
+		bulkhead.reserve().release();
+	}
+
+	@Test
+	void checkedExceptionsReachTheCaller() {
+		IOException thrown = assertThrows(IOException.class, () -> bulkhead.call(() -> {
+			throw new IOException("disk full");
+		}));
+		assertEquals("disk full", thrown.getMessage());
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "timed out");
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.eventure.events.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeTicketIdGeneratorTest {
+
+	@Test
+	void millionsOfIdsFromManyThreadsAreUnique() throws Exception {
+		SnowflakeTicketIdGenerator generator = new SnowflakeTicketIdGenerator(7, 1);
+		int threads = 8;
+		int perThread = 250_000;
+		Set<String> ids = ConcurrentHashMap.newKeySet(threads * perThread);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < perThread; i++) {
+					ids.add(generator.nextId());
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+		assertEquals(threads * perThread, ids.size());
+	}
+
+	@Test
+	void idsAreFixedWidthAndTimeOrdered() {
+		SnowflakeTicketIdGenerator generator = new SnowflakeTicketIdGenerator(1, 1);
+		String previous = generator.nextId();
+		for (int i = 0; i < 100_000; i++) {
+			String next = generator.nextId();
+			assertEquals(14, next.length());
+			assertTrue(next.compareTo(previous) > 0);
+			previous = next;
+		}
+	}
+
+	@Test
+	void nodeIsRequiredWithMoreThanOneInstance() {
+		assertThrows(IllegalStateException.class, () -> new SnowflakeTicketIdGenerator(-1, 3));
+		assertEquals(14, new SnowflakeTicketIdGenerator(2, 3).nextId().length());
+	}
+}
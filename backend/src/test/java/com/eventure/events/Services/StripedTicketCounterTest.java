@@ -0,0 +1,88 @@
+package com.eventure.events.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedTicketCounterTest {
+
+	@Test
+	void parallelBookingsNeverOversell() throws Exception {
+		int capacity = 5000;
+		StripedTicketCounter counter = new StripedTicketCounter(capacity, 8);
+		AtomicInteger sold = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(32);
+
+		for (int i = 0; i < 10000; i++) {
+			int count = 1 + (i % 3);
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (counter.tryTake(count)) {
+					sold.addAndGet(count);
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(capacity, sold.get());
+		assertEquals(0, counter.available());
+		int[] deltas = counter.drainDeltas();
+		assertEquals(-capacity, deltas[1]);
+		assertEquals(capacity, deltas[2]);
+	}
+
+	@Test
+	void cancellationsAndBookingsBalance() throws Exception {
+		StripedTicketCounter counter = new StripedTicketCounter(100, 4);
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		for (int i = 0; i < 20000; i++) {
+			pool.execute(() -> {
+				if (counter.tryTake(2)) {
+					counter.give(2);
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(100, counter.available());
+		assertEquals(0, counter.drainDeltas()[1]);
+	}
+
+	@Test
+	void requestSpanningStripesIsServed() {
+		StripedTicketCounter counter = new StripedTicketCounter(8, 8);
+		assertTrue(counter.tryTake(7));
+		assertFalse(counter.tryTake(2));
+		assertTrue(counter.tryTake(1));
+		assertEquals(0, counter.available());
+	}
+
+	@Test
+	void shrinkingCapacityClampsAtZero() {
+		StripedTicketCounter counter = new StripedTicketCounter(10, 4);
+		assertTrue(counter.tryTake(6));
+		counter.adjustCapacity(-8);
+		assertEquals(0, counter.available());
+		int[] deltas = counter.drainDeltas();
+		assertEquals(-8, deltas[0]);
+		assertEquals(-10, deltas[1]);
+		assertEquals(6, deltas[2]);
+	}
+}
@@ -0,0 +1,73 @@
+package com.eventure.events.Services;
+
+import com.eventure.events.model.TicketHold;
+import com.eventure.events.repository.EventRepo;
+import com.eventure.events.repository.TicketHoldRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TicketHoldServiceTest {
+
+	private final TicketHoldRepo ticketHoldRepo = mock(TicketHoldRepo.class);
+	private final EventRepo eventRepo = mock(EventRepo.class);
+	private final TicketInventory ticketInventory = new MongoTicketInventory(eventRepo, mock(ApplicationEventPublisher.class));
+
+	private TicketHoldService newInstance() {
+		return new TicketHoldService(ticketHoldRepo, eventRepo, ticketInventory, 600, 1000);
+	}
+
+	private TicketHold hold(LocalDateTime expiresAt) {
+		return TicketHold.builder().id("h1").eventId("e1").userId("u1").ticketCount(2).expiresAt(expiresAt).build();
+	}
+
+	@Test
+	void expiredHoldRecoveredByTwoInstancesIsReleasedOnce() {
+		when(ticketHoldRepo.findAll()).thenReturn(Collections.singletonList(hold(LocalDateTime.now().minusMinutes(1))));
+		when(ticketHoldRepo.removeById("h1")).thenReturn(1L, 0L);
+		when(eventRepo.releaseTickets("e1", 2)).thenReturn(true);
+
+		newInstance().recoverHolds();
+		newInstance().recoverHolds();
+
+		verify(eventRepo, times(1)).releaseTickets("e1", 2);
+	}
+
+	@Test
+	void holdConfirmedElsewhereIsNotReleased() {
+		when(ticketHoldRepo.findAll()).thenReturn(Collections.singletonList(hold(LocalDateTime.now().plusMinutes(5))));
+		when(ticketHoldRepo.removeById("h1")).thenReturn(0L);
+		TicketHoldService service = newInstance();
+		service.recoverHolds();
+
+		service.releaseHold("h1");
+
+		verify(eventRepo, never()).releaseTickets(any(), anyInt());
+		assertFalse(service.confirmHold("h1", "u1", "e1", 2));
+	}
+
+	@Test
+	void confirmFallsBackToTheStoredHold() {
+		when(ticketHoldRepo.removeByIdAndEventIdAndUserIdAndTicketCountAndExpiresAtAfter(
+				any(), any(), any(), anyInt(), any())).thenReturn(0L);
+		when(ticketHoldRepo.removeByIdAndEventIdAndUserIdAndTicketCountAndExpiresAtAfter(
+				eq("h1"), eq("e1"), eq("u1"), eq(2), any())).thenReturn(1L);
+		TicketHoldService service = newInstance();
+
+		assertTrue(service.confirmHold("h1", "u1", "e1", 2));
+		assertFalse(service.confirmHold("h1", "u1", "e1", 3));
+	}
+}
@@ -0,0 +1,43 @@
+package com.eventure.events.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+	@Test
+	void firesOnlyAfterDeadline() {
+		TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+		wheel.schedule("a", 250);
+		wheel.schedule("b", 1500); // more than one revolution away
+
+		assertTrue(wheel.advance(200).isEmpty());
+		assertEquals(List.of("a"), wheel.advance(300));
+		assertTrue(wheel.advance(1400).isEmpty());
+		assertEquals(List.of("b"), wheel.advance(1500));
+	}
+
+	@Test
+	void cancelledTimeoutsDoNotFire() {
+		TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+		TimingWheel.Timeout<String> timeout = wheel.schedule("a", 200);
+		wheel.schedule("b", 200);
+		timeout.cancel();
+
+		assertEquals(List.of("b"), wheel.advance(200));
+	}
+
+	@Test
+	void longPauseExpiresEverythingDue() {
+		TimingWheel<Integer> wheel = new TimingWheel<>(10, 16, 0);
+		for (int i = 0; i < 100_000; i++) {
+			wheel.schedule(i, 10 + (i % 1000));
+		}
+		assertEquals(100_000, wheel.advance(5000).size());
+		assertTrue(wheel.advance(6000).isEmpty());
+	}
+}
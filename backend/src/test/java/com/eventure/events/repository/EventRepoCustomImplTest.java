@@ -0,0 +1,146 @@
+package com.eventure.events.repository;
+
+import com.eventure.events.model.Events;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventRepoCustomImplTest {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final EventRepoCustomImpl repo = new EventRepoCustomImpl(mongoTemplate);
+
+	@Test
+	void reserveIsOneUpdateGuardedOnAvailableTickets() {
+		when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Events.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		repo.reserveTickets("e1", 3);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+		verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Events.class));
+		assertEquals(new Document("id", "e1").append("available_tickets", new Document("$gte", 3)), query.getValue().getQueryObject());
+		assertEquals(new Document("available_tickets", -3).append("eventAttendees", 3).append("version", 1),
+				update.getValue().getUpdateObject().get("$inc", Document.class));
+	}
+
+	@Test
+	void parallelBookingsAndCancelsKeepTotalsExact() throws Exception {
+		// Stands in for Mongo: each updateFirst matches and applies atomically on one document, as a single document write does
+		Document event = new Document("id", "e1").append("available_tickets", 500).append("eventAttendees", 0).append("version", 0);
+		when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Events.class)))
+				.thenAnswer(invocation -> applyAtomically(event, invocation.getArgument(0), invocation.getArgument(1)));
+
+		int threads = 16;
+		AtomicInteger reserved = new AtomicInteger();
+		AtomicInteger released = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 2_000; i++) {
+					int count = 1 + random.nextInt(4);
+					if (repo.reserveTickets("e1", count)) {
+						reserved.addAndGet(count);
+						if (random.nextInt(4) == 0 && repo.releaseTickets("e1", count)) {
+							released.addAndGet(count);
+						}
+					}
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+		int sold = reserved.get() - released.get();
+		assertTrue(sold <= 500);
+		assertEquals(500 - sold, event.getInteger("available_tickets"));
+		assertEquals(sold, event.getInteger("eventAttendees"));
+	}
+
+	private static UpdateResult applyAtomically(Document document, Query query, UpdateDefinition update) {
+		synchronized (document) {
+			for (Map.Entry<String, Object> criterion : query.getQueryObject().entrySet()) {
+				Object actual = document.get(criterion.getKey());
+				if (criterion.getValue() instanceof Document) {
+					int min = ((Document) criterion.getValue()).getInteger("$gte");
+					if ((Integer) actual < min) {
+						return UpdateResult.acknowledged(0, 0L, null);
+					}
+				} else if (!criterion.getValue().equals(actual)) {
+					return UpdateResult.acknowledged(0, 0L, null);
+				}
+			}
+			Document inc = update.getUpdateObject().get("$inc", Document.class);
+			for (Map.Entry<String, Object> field : inc.entrySet()) {
+				document.put(field.getKey(), document.getInteger(field.getKey()) + ((Number) field.getValue()).intValue());
+			}
+			return UpdateResult.acknowledged(1, 1L, null);
+		}
+	}
+
+	@Test
+	void nearbyQueriesLongitudeFirst() {
+		when(mongoTemplate.getCollectionName(Events.class)).thenReturn("Events");
+		when(mongoTemplate.aggregate(any(Aggregation.class), eq("Events"), eq(Document.class)))
+				.thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+		repo.findNearby(37.33, -121.89, 10, LocalDateTime.now(), 40, 20);
+
+		ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+		verify(mongoTemplate).aggregate(aggregation.capture(), eq("Events"), eq(Document.class));
+		List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+		Document geoNear = pipeline.get(0).get("$geoNear", Document.class);
+		assertEquals(List.of(-121.89, 37.33), geoNear.get("near", Document.class).get("coordinates"));
+		assertEquals(10_000.0, geoNear.get("maxDistance"));
+		assertEquals(new Document("$skip", 40L), pipeline.get(1));
+	}
+
+	@Test
+	void geoBackfillWritesLongitudeFirst() {
+		Events event = new Events();
+		event.setId("e1");
+		when(mongoTemplate.find(any(Query.class), eq(Events.class))).thenReturn(List.of(event));
+
+		assertEquals(List.of("e1"), repo.backfillGeoPoints());
+
+		ArgumentCaptor<AggregationUpdate> update = ArgumentCaptor.forClass(AggregationUpdate.class);
+		verify(mongoTemplate).updateMulti(any(Query.class), update.capture(), eq(Events.class));
+		Document geo = update.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(0)
+				.get("$set", Document.class).get("geo", Document.class);
+		assertEquals(List.of("$location.longitude", "$location.latitude"), geo.get("coordinates"));
+	}
+}
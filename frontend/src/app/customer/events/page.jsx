@@ -155,10 +155,16 @@ export default function CustomerEvents() {
       const response = await fetch(`${BASE_URL}/booking/${bookingId}/generatePdf?requestingUserId=${userId}`, {
         headers: {
           'Authorization': `Bearer ${token}`,
-          'Accept': 'application/pdf'
+          // JSON too, so error responses can still be written
+          'Accept': 'application/pdf, application/json'
         }
       });
 
+      if (response.status === 503) {
+        const retryAfter = response.headers.get('Retry-After') || 'a few';
+        alert(`Lots of tickets are being downloaded right now. Please try again in ${retryAfter} seconds.`);
+        return;
+      }
       if (!response.ok) {
         throw new Error('Failed to download tickets');
       }
@@ -81,7 +81,6 @@ export default function CustomerHomePage() {
 
       const data = await response.json();
       console.log('API Response:', data);
-      console.log('First event image:', data[0]?.eventImageBase64?.substring(0, 100));
       setEvents(data);
     } catch (err) {
       console.error('Error fetching events:', err);
@@ -19,6 +19,7 @@ export default function EventDetailsPage() {
   const [toast, setToast] = useState({ show: false, message: '', type: '' });
   const [userBooking, setUserBooking] = useState(null);
   const [showConfirmModal, setShowConfirmModal] = useState(false);
+  const [queueStatus, setQueueStatus] = useState(null);
 
   // Auto-hide toast after 5 seconds
   useEffect(() => {
@@ -64,6 +65,22 @@ export default function EventDetailsPage() {
     fetchEventDetails();
   }, [id, isAuthenticated]);
 
+  // Live ticket counts instead of refreshing the page
+  useEffect(() => {
+    if (!id) return;
+    const source = new EventSource(`${BASE_URL}/events/${id}/availability`);
+    source.addEventListener('availability', (e) => {
+      const update = JSON.parse(e.data);
+      setEvent((prev) => prev && {
+        ...prev,
+        available_tickets: update.available_tickets,
+        eventCapacity: update.eventCapacity,
+        eventAttendees: update.eventAttendees
+      });
+    });
+    return () => source.close();
+  }, [id]);
+
 
 
   const formatDate = (dateString) => {
@@ -78,19 +95,57 @@ export default function EventDetailsPage() {
     }
   };
 
-  const createPayPalPayment = async (amount) => {
+  // Waiting room in front of checkout, resolves with the token to send as X-Queue-Token.
+  // When the queue is disabled on the backend the join admits right away.
+  const waitForAdmission = async () => {
+    const headers = {
+      'Authorization': `Bearer ${token}`,
+      'Content-Type': 'application/json',
+    };
+    const joinResponse = await fetch(`${BASE_URL}/queue/${id}/join`, {
+      method: 'POST',
+      headers,
+      body: JSON.stringify({ userId: user.id }),
+    });
+    if (!joinResponse.ok) {
+      throw new Error('Failed to join the waiting room');
+    }
+    let status = await joinResponse.json();
+    while (!status.admitted) {
+      if (status.soldOut) {
+        throw new Error('This event is sold out');
+      }
+      setQueueStatus(status);
+      await new Promise((resolve) => setTimeout(resolve, 3000));
+      const response = await fetch(`${BASE_URL}/queue/${id}/status?token=${encodeURIComponent(status.token)}`, { headers });
+      if (!response.ok) {
+        throw new Error('Your place in the waiting room expired, please try again');
+      }
+      status = await response.json();
+    }
+    setQueueStatus(null);
+    return status.token;
+  };
+
+  const createPayPalPayment = async (amount, queueToken) => {
     const response = await fetch(`${BASE_URL}/events/create-payment`, {
       method: 'POST',
       headers: {
         'Authorization': `Bearer ${token}`,
         'Content-Type': 'application/json',
+        'X-Queue-Token': queueToken,
       },
-      body: JSON.stringify({ amount: amount.toFixed(2) }), // amount as string
+      body: JSON.stringify({
+        amount: amount.toFixed(2), // amount as string
+        eventId: id,
+        userId: user.id,
+        ticketCount,
+      }),
     });
 
     const data = await response.json();
     if (data.status === 'success') {
-      return data.approvalUrl;
+      return data;
     } else {
       throw new Error(data.message || 'Failed to initiate payment');
     }
@@ -111,6 +166,7 @@ export default function EventDetailsPage() {
 
       setIsBooking(true);
       const totalTicketPrice = ticketCount * event.ticketPrice;
+      const queueToken = await waitForAdmission();
 
       // If ticket price is zero, directly book the tickets
       if (totalTicketPrice === 0) {
@@ -119,6 +175,7 @@ export default function EventDetailsPage() {
           headers: {
             'Authorization': `Bearer ${token}`,
             'Content-Type': 'application/json',
+            'X-Queue-Token': queueToken,
           },
           body: JSON.stringify({
             userId: user.id,
@@ -142,7 +199,7 @@ export default function EventDetailsPage() {
       }
 
       // For paid tickets, proceed with PayPal payment
-      const approvalUrl = await createPayPalPayment(totalTicketPrice);
+      const { approvalUrl, holdId } = await createPayPalPayment(totalTicketPrice, queueToken);
 
       // Save booking intent info in localStorage
       localStorage.setItem('bookingDetails', JSON.stringify({
@@ -152,6 +209,8 @@ export default function EventDetailsPage() {
         ticketPrice: event.ticketPrice,
         totalTicketPrice,
         paymentStatus: true,
+        holdId,
+        queueToken,
       }));
 
       // Redirect to PayPal
@@ -161,6 +220,7 @@ export default function EventDetailsPage() {
       console.error('Payment initiation error:', error);
       showToast(error.message, 'error');
     } finally {
+      setQueueStatus(null);
       setIsBooking(false);
     }
   };
@@ -288,7 +348,7 @@ export default function EventDetailsPage() {
                     : 'bg-gradient-to-r from-indigo-600 to-purple-600 hover:from-indigo-700 hover:to-purple-700'
                 }`}
               >
-                {isBooking ? 'Processing...' : 'Confirm'}
+                {queueStatus ? `In waiting room, ${queueStatus.position} ahead` : isBooking ? 'Processing...' : 'Confirm'}
               </button>
             </div>
           </div>
@@ -298,9 +358,9 @@ export default function EventDetailsPage() {
       <main>
         {/* Full Width Image */}
         <div className="w-full h-[500px] relative">
-          {event?.eventImageBase64 ? (
+          {event?.imageId ? (
             <img
-              src={event.eventImageBase64}
+              src={`${BASE_URL}/images/${event.imageId}/original`}
               alt={event.eventName}
               className="w-full h-full object-cover"
               onError={(e) => {
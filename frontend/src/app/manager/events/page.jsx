@@ -110,9 +110,13 @@ export default function ManagerEventsPage() {
               <div key={event.id} className="bg-white rounded-lg shadow-md overflow-hidden hover:shadow-lg transition-shadow duration-300">
                 <div className="relative h-48">
                   <img
-                    src={event.eventImageBase64 || 'https://images.unsplash.com/photo-1511795409834-ef04bbd61622?w=500&auto=format&fit=crop&q=60'}
+                    src={event.imageId ? `${BASE_URL}/images/${event.imageId}/card` : 'https://images.unsplash.com/photo-1511795409834-ef04bbd61622?w=500&auto=format&fit=crop&q=60'}
                     alt={event.eventName}
                     className="w-full h-full object-cover"
+                    onError={(e) => {
+                      e.currentTarget.onerror = null;
+                      e.currentTarget.src = 'https://images.unsplash.com/photo-1511795409834-ef04bbd61622?w=500&auto=format&fit=crop&q=60';
+                    }}
                   />
                   <div className="absolute top-4 right-4">
                     <button
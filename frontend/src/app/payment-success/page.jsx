@@ -34,7 +34,7 @@ export default function PaymentSuccessPage() {
       }
 
       try {
-        const details = JSON.parse(localStorage.getItem('bookingDetails') || '{}');
+        const { queueToken, ...details } = JSON.parse(localStorage.getItem('bookingDetails') || '{}');
         if (!details.userId || !details.eventId) {
           router.push('/?status=error');
           return;
@@ -44,7 +44,9 @@ export default function PaymentSuccessPage() {
           method: 'POST',
           headers: {
             'Content-Type': 'application/json',
-            'Authorization': `Bearer ${token}`
+            'Authorization': `Bearer ${token}`,
+            // Admission from the waiting room, checked again when the booking is made
+            'X-Queue-Token': queueToken || ''
           },
           body: JSON.stringify({
             ...details,
@@ -1,6 +1,7 @@
 import Link from 'next/link';
 import { Calendar, MapPin, User } from 'lucide-react';
 import { useState } from 'react';
+import { BASE_URL } from '@/constants/constants';
 
 export default function EventCard({ event }) {
   const [imageError, setImageError] = useState(false);
@@ -37,7 +38,7 @@ export default function EventCard({ event }) {
       <div className="bg-white rounded-lg shadow-md overflow-hidden hover:shadow-lg transition-shadow duration-300">
         <div className="relative h-48">
           <img
-            src={!imageError && event.eventImageBase64 ? event.eventImageBase64 : getPlaceholderImage()}
+            src={!imageError && event.imageId ? `${BASE_URL}/images/${event.imageId}/card` : getPlaceholderImage()}
             alt={event.eventName}
             className="w-full h-full object-cover"
             onError={handleImageError}